@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.testingblaze.actionsfactory.api.ActionFactoryInitiate;
+import com.testingblaze.controller.Avrb8aYEmH;
+import com.testingblaze.controller.DeviceBucket;
+import com.testingblaze.controller.ScenarioController;
+import com.testingblaze.controller.TestingBlazeGlobal;
+import com.testingblaze.objects.InstanceRecording;
+import io.cucumber.core.backend.TestCaseState;
+import io.cucumber.java.Scenario;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.Collections;
+
+/**
+ * Sets up what a scenario would, without cucumber or a browser: a scenario whose report output is discarded, the
+ * core library and, on request, the action components over a {@link StubDriver}.
+ */
+final class BenchmarkFixture {
+
+    private BenchmarkFixture() {
+    }
+
+    /**
+     * Install a silent scenario and the core library, as at the start of a scenario.
+     */
+    static void installScenario() {
+        System.setProperty("printConsoleLogs", "false");
+        setScenario(newScenario());
+        InstanceRecording.flushInstance();
+        InstanceRecording.recordInstance(Avrb8aYEmH.class, new Avrb8aYEmH());
+    }
+
+    /**
+     * Install a scenario over a stub driver with the action components registered, as TestSetupController does.
+     *
+     * @return the stub, to count round trips
+     */
+    static StubDriver installScenarioWithStubDriver() {
+        installScenario();
+        StubDriver stubDriver = new StubDriver();
+        InstanceRecording.recordInstance(DeviceBucket.class, DeviceBucket.wrapping(stubDriver));
+        TestingBlazeGlobal.setVariable("highlightElements", "off");
+        new ActionFactoryInitiate();
+        return stubDriver;
+    }
+
+    /*
+     * ScenarioController only lets the setup controller set the scenario
+     */
+    private static void setScenario(Scenario scenario) {
+        try {
+            Field field = ScenarioController.class.getDeclaredField("scenario");
+            field.setAccessible(true);
+            field.set(null, scenario);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to install the benchmark scenario", e);
+        }
+    }
+
+    private static Scenario newScenario() {
+        TestCaseState state = (TestCaseState) Proxy.newProxyInstance(BenchmarkFixture.class.getClassLoader(),
+                new Class<?>[]{TestCaseState.class}, (proxy, method, args) -> answer(proxy, method, args));
+        try {
+            Constructor<Scenario> constructor = Scenario.class.getDeclaredConstructor(TestCaseState.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(state);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create the benchmark scenario", e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object answer(Object proxy, Method method, Object[] args) {
+        Class<?> returnType = method.getReturnType();
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "getSourceTagNames":
+                return Collections.emptyList();
+            case "getStatus":
+                return Enum.valueOf((Class<Enum>) returnType, "PASSED");
+            case "isFailed":
+                return false;
+            case "getLine":
+                return 1;
+            case "getUri":
+                return returnType == URI.class ? URI.create("classpath:benchmark.feature") : "classpath:benchmark.feature";
+            case "getName":
+            case "getId":
+            case "toString":
+                return "benchmark";
+            default:
+                // write and embed: the report output is not kept
+                return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.testingblaze.misclib.ExcelStreamReader;
+import com.testingblaze.misclib.ExcelStreamWriter;
+import com.testingblaze.misclib.JsonDataStore;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Test data reads: an xlsx sheet streamed, read through the sheet cache, or loaded as a POI workbook as before
+ * ExcelStreamReader; a value of benchmark-data.json looked up through JsonDataStore, cold or cached, or parsed
+ * for every lookup as before JsonDataStore.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataReadBenchmark {
+    private static final String SHEET = "TestData";
+    private static final String JSON_RESOURCE = "benchmark-data.json";
+    private static final String JSON_POINTER = JsonDataStore.pointerOf("orders", "150", "customer", "email");
+
+    @Param({"1000", "50000"})
+    public int excelRows;
+
+    private Path workbook;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workbook = Files.createTempFile("blaze-benchmark", ".xlsx");
+        Files.delete(workbook);
+        try (ExcelStreamWriter writer = ExcelStreamWriter.toExcel(workbook, SHEET, ExcelStreamWriter.DEFAULT_ROW_WINDOW)) {
+            writer.writeRow("Id", "User", "Email", "Amount", "Active", "Comment");
+            for (int row = 1; row <= excelRows; row++) {
+                writer.writeRow(row, "user" + row, "user" + row + "@example.com", row * 1.5, row % 2 == 0, "comment for row " + row);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(workbook);
+    }
+
+    @Benchmark
+    public void excelStreamRows(Blackhole blackhole) {
+        try (Stream<Map<String, String>> rows = ExcelStreamReader.streamRows(workbook, SHEET)) {
+            rows.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public String excelCachedSheet() {
+        ExcelStreamReader.Sheet sheet = ExcelStreamReader.readSheet(workbook, SHEET);
+        return sheet.getRows().get(sheet.getRows().size() / 2)[2];
+    }
+
+    @Benchmark
+    public void excelWorkbook(Blackhole blackhole) throws IOException {
+        DataFormatter formatter = new DataFormatter();
+        try (InputStream in = Files.newInputStream(workbook); XSSFWorkbook xssfWorkbook = new XSSFWorkbook(in)) {
+            for (Row row : xssfWorkbook.getSheet(SHEET)) {
+                row.forEach(cell -> blackhole.consume(formatter.formatCellValue(cell)));
+            }
+        }
+    }
+
+    @Benchmark
+    public String jsonCachedLookup() {
+        return JsonDataStore.getString(JSON_RESOURCE, JSON_POINTER);
+    }
+
+    @Benchmark
+    public String jsonColdLookup() {
+        JsonDataStore.clear();
+        return JsonDataStore.getString(JSON_RESOURCE, JSON_POINTER);
+    }
+
+    @Benchmark
+    public String jsonParsePerLookup() throws IOException {
+        try (Reader reader = new InputStreamReader(getClass().getClassLoader().getResourceAsStream(JSON_RESOURCE), StandardCharsets.UTF_8)) {
+            JsonElement root = new JsonParser().parse(reader);
+            return root.getAsJsonObject().getAsJsonArray("orders").get(150).getAsJsonObject()
+                    .getAsJsonObject("customer").get("email").getAsString();
+        }
+    }
+}
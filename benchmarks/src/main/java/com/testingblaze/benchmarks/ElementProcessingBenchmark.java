@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.testingblaze.actionsfactory.abstracts.ElementProcessing;
+import com.testingblaze.objects.InstanceRecording;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openqa.selenium.By;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Element processing of a step over a {@link StubDriver}: the time is the framework's own overhead, the counters
+ * give the driver commands a real browser would have to answer for each element.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ElementProcessingBenchmark {
+    private static final By LOCATOR = By.id("submit");
+
+    private StubDriver stubDriver;
+    private ElementProcessing elementProcessing;
+
+    /**
+     * Totals per iteration, reported next to the time: roundTrips / elements is the commands per element
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        public long roundTrips;
+        public long elements;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            roundTrips = 0;
+            elements = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stubDriver = BenchmarkFixture.installScenarioWithStubDriver();
+        elementProcessing = InstanceRecording.getInstance(ElementProcessing.class);
+    }
+
+    @Benchmark
+    public void singleElement(RoundTrips counter, Blackhole blackhole) {
+        long before = stubDriver.getRoundTrips();
+        blackhole.consume(elementProcessing.forSingleElement(LOCATOR));
+        counter.roundTrips += stubDriver.getRoundTrips() - before;
+        counter.elements++;
+    }
+
+    @Benchmark
+    public void listOfElements(RoundTrips counter, Blackhole blackhole) {
+        long before = stubDriver.getRoundTrips();
+        blackhole.consume(elementProcessing.forListOfElements(LOCATOR));
+        counter.roundTrips += stubDriver.getRoundTrips() - before;
+        counter.elements++;
+    }
+}
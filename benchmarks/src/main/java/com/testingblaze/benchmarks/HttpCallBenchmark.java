@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import com.testingblaze.http.HttpConnectionPool;
+import io.restassured.RestAssured;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Api calls against a stub server on the loopback interface, by 4 threads as with async or parallel calls: through
+ * the pooled keep-alive client of HttpConnectionPool, and with a new client per call as RestAssured does by default.
+ * The server answers at once, so the time is the client side cost including connection setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class HttpCallBenchmark {
+    private static final byte[] BODY = createBody();
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private String endPoint;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 100);
+        server.createContext("/users", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(BODY);
+            }
+        });
+        serverThreads = Executors.newFixedThreadPool(8, runnable -> {
+            Thread thread = new Thread(runnable, "blaze-benchmark-stub-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(serverThreads);
+        server.start();
+        endPoint = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/users";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public String pooledClient() {
+        return HttpConnectionPool.given(false).accept("application/json").get(endPoint).asString();
+    }
+
+    @Benchmark
+    public String clientPerCall() {
+        return RestAssured.given().accept("application/json").get(endPoint).asString();
+    }
+
+    /*
+     * a typical 2 KB list response
+     */
+    private static byte[] createBody() {
+        StringBuilder body = new StringBuilder("[");
+        for (int user = 0; user < 20; user++) {
+            body.append(user == 0 ? "" : ",").append("{\"id\":").append(user).append(",\"name\":\"user").append(user)
+                    .append("\",\"email\":\"user").append(user).append("@example.com\",\"active\":true,\"roles\":[\"reader\",\"writer\"]}");
+        }
+        return body.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
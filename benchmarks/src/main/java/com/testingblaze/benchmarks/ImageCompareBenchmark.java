@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.testingblaze.misclib.ImageComparator;
+import com.testingblaze.misclib.PerceptualHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.qatools.ashot.comparison.ImageDiffer;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Screenshot comparison of Compare.Image, ImageComparator, against the AShot ImageDiffer it replaced, on a page
+ * sized screenshot that is unchanged, slightly changed or replaced by another page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class ImageCompareBenchmark {
+
+    @Param({"1366x768", "1920x5000"})
+    public String size;
+
+    @Param({"same", "small-change", "other-page"})
+    public String change;
+
+    private BufferedImage expected;
+    private BufferedImage actual;
+    private ImageComparator comparator;
+    private ImageComparator comparatorWithHashPreFilter;
+    private ImageComparator comparatorWithIgnoredRegion;
+    private ImageDiffer imageDiffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+        expected = page(width, height, 1);
+        switch (change) {
+            case "small-change":
+                actual = copy(expected);
+                Graphics2D graphics = actual.createGraphics();
+                graphics.setColor(Color.RED);
+                graphics.fillRect(width / 3, height / 3, 40, 20);
+                graphics.dispose();
+                break;
+            case "other-page":
+                actual = page(width, height, 2);
+                break;
+            default:
+                actual = copy(expected);
+        }
+        comparator = new ImageComparator(1);
+        comparatorWithHashPreFilter = new ImageComparator(1, ImageComparator.DEFAULT_COLOR_DISTORTION, Collections.emptyList(), 10);
+        comparatorWithIgnoredRegion = new ImageComparator(1, ImageComparator.DEFAULT_COLOR_DISTORTION,
+                Collections.singletonList(new Rectangle(0, 0, width, 60)), -1);
+        imageDiffer = new ImageDiffer();
+    }
+
+    @Benchmark
+    public boolean imageComparator() {
+        return comparator.isSame(expected, actual);
+    }
+
+    @Benchmark
+    public boolean imageComparatorWithHashPreFilter() {
+        return comparatorWithHashPreFilter.isSame(expected, actual);
+    }
+
+    @Benchmark
+    public boolean imageComparatorWithIgnoredRegion() {
+        return comparatorWithIgnoredRegion.isSame(expected, actual);
+    }
+
+    @Benchmark
+    public long dHash() {
+        return PerceptualHash.dHash(actual);
+    }
+
+    /*
+     * As Compare.Image did before ImageComparator
+     */
+    @Benchmark
+    public boolean ashotImageDiffer() {
+        return !imageDiffer.makeDiff(expected, actual)
+                .withDiffSizeTrigger((int) comparator.getAllowedDifferentPixels(expected)).hasDiff();
+    }
+
+    /*
+     * A page like screenshot: header, text lines and boxes, laid out from a seed
+     */
+    private static BufferedImage page(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(new Color(30, 60, 120));
+        graphics.fillRect(0, 0, width, 60);
+        for (int y = 80; y < height; y += 24) {
+            graphics.setColor(new Color(random.nextInt(80), random.nextInt(80), random.nextInt(80)));
+            graphics.fillRect(40, y, 200 + random.nextInt(Math.max(1, width - 280)), 10);
+            if (random.nextInt(8) == 0) {
+                graphics.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+                graphics.fillRect(random.nextInt(Math.max(1, width - 300)), y, 300, 120);
+            }
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+        Graphics2D graphics = copy.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return copy;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.testingblaze.actionsfactory.abstracts.ElementProcessing;
+import com.testingblaze.actionsfactory.elementfunctions.Waits;
+import com.testingblaze.controller.DeviceBucket;
+import com.testingblaze.controller.TestingBlazeGlobal;
+import com.testingblaze.objects.InstanceRecording;
+import com.testingblaze.register.I;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups every step makes many times, by 8 threads at once as with parallel runners in one jvm. Lookups only:
+ * TestingBlazeGlobal is not safe for concurrent writes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class InstanceLookupBenchmark {
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixture.installScenarioWithStubDriver();
+        // create the lazily provided components before measuring
+        InstanceRecording.getInstance(ElementProcessing.class);
+        I.amPerforming().waitFor();
+    }
+
+    @Benchmark
+    public Object recordedInstance() {
+        return InstanceRecording.getInstance(DeviceBucket.class);
+    }
+
+    @Benchmark
+    public Object providedInstance() {
+        return InstanceRecording.getInstance(ElementProcessing.class);
+    }
+
+    @Benchmark
+    public Waits coreLibraryAccessor() {
+        return I.amPerforming().waitFor();
+    }
+
+    @Benchmark
+    public Object globalVariable() {
+        return TestingBlazeGlobal.getVariable("highlightElements");
+    }
+
+    @Benchmark
+    public boolean globalVariablePresence() {
+        return TestingBlazeGlobal.hasVariable("highlightElements");
+    }
+}
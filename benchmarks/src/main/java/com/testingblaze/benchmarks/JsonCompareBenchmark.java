@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.testingblaze.http.JsonStreamComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Json response validation of large payloads: JsonStreamComparator, as validateJsonResponse does it, against parsing
+ * both documents to Gson trees, the least the tree walker it replaced had to do. With reordered keys every object of
+ * the actual document lists its keys in a different order, so the comparator falls back to trees per object.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonCompareBenchmark {
+
+    /**
+     * about 150 bytes each, 100000 records are a 15 MB payload
+     */
+    @Param({"1000", "100000"})
+    public int records;
+
+    @Param({"false", "true"})
+    public boolean reorderedKeys;
+
+    private String expected;
+    private String actual;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        expected = createPayload(records, false);
+        actual = createPayload(records, reorderedKeys);
+    }
+
+    @Benchmark
+    public List<String> streamComparator() throws IOException {
+        return new JsonStreamComparator(Collections.singleton("/records/*/updated"), 10)
+                .compare(new StringReader(expected), new StringReader(actual));
+    }
+
+    @Benchmark
+    public boolean gsonTrees() {
+        JsonParser parser = new JsonParser();
+        JsonElement expectedTree = parser.parse(expected);
+        JsonElement actualTree = parser.parse(actual);
+        return expectedTree.equals(actualTree);
+    }
+
+    private static String createPayload(int records, boolean reorderedKeys) {
+        StringBuilder payload = new StringBuilder(records * 160).append("{\"total\":").append(records).append(",\"records\":[");
+        for (int record = 0; record < records; record++) {
+            payload.append(record == 0 ? "{" : ",{");
+            if (reorderedKeys) {
+                payload.append("\"name\":\"record ").append(record).append("\",\"id\":").append(record);
+            } else {
+                payload.append("\"id\":").append(record).append(",\"name\":\"record ").append(record).append('"');
+            }
+            payload.append(",\"amount\":").append(record * 1.25)
+                    .append(",\"tags\":[\"b\",\"a\",\"c\"]")
+                    .append(",\"address\":{\"street\":\"").append(record).append(" Main Street\",\"city\":\"Springfield\"}")
+                    .append(",\"updated\":\"2020-01-01T00:00:00Z\"}");
+        }
+        return payload.append("]}").toString();
+    }
+}
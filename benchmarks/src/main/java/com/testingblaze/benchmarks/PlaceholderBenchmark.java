@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.testingblaze.register.LazyDataTable;
+import com.testingblaze.register.PlaceholderTokenizer;
+import com.testingblaze.register.TypeRegistryConfiguration;
+import io.cucumber.datatable.DataTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placeholder expansion of step arguments and data tables. Property placeholders read benchmark.properties and are
+ * reused within the scenario, date placeholders are resolved every time, the remaining cells are plain text.
+ * Run with -jvmArgsAppend -DparallelTableConversion=&lt;cells&gt; to measure parallel table conversion.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlaceholderBenchmark {
+    private static final String[] CELLS = {
+            "{benchmark:user}",
+            "Order {benchmark:order} placed on {Date:MM/dd/yyyy::D+1}",
+            "---benchmark:-:region---",
+            "plain text without placeholders",
+            "{benchmark:missing}",
+    };
+
+    @Param({"100", "10000"})
+    public int tableRows;
+
+    private TypeRegistryConfiguration typeRegistry;
+    private DataTable table;
+    private String document;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixture.installScenario();
+        typeRegistry = new TypeRegistryConfiguration();
+        List<List<String>> rows = new ArrayList<>(tableRows);
+        StringBuilder text = new StringBuilder();
+        for (int row = 0; row < tableRows; row++) {
+            List<String> cells = new ArrayList<>(CELLS.length);
+            for (int column = 0; column < CELLS.length; column++) {
+                cells.add(CELLS[(row + column) % CELLS.length]);
+            }
+            rows.add(cells);
+            text.append(String.join(" | ", cells)).append('\n');
+        }
+        table = DataTable.create(rows);
+        document = text.toString();
+    }
+
+    @Benchmark
+    public Object stepArgument() {
+        return typeRegistry.convertStringParameter(CELLS[1], String.class);
+    }
+
+    @Benchmark
+    public DataTable dataTable() {
+        return typeRegistry.convertDataTable(table);
+    }
+
+    @Benchmark
+    public String lazyDataTableFirstCell() {
+        LazyDataTable lazyTable = typeRegistry.convertLazyDataTable(table);
+        return lazyTable.cell(0, 0);
+    }
+
+    /*
+     * The scanner alone, with a resolver that does no lookups
+     */
+    @Benchmark
+    public String tokenizer() {
+        return PlaceholderTokenizer.expand(document, (placeholder, key, value) -> value);
+    }
+}
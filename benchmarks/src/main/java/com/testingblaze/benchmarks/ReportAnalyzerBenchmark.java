@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.testingblaze.register.EnvironmentFactory;
+import com.testingblaze.report.ReportAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * ReportAnalyzer.executeAnalysis over synthetic cucumber json reports, as written by parallel runners: one file per
+ * runner, named &lt;feature&gt;_&lt;runner&gt;.json, with passed, failed and skipped Then steps.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportAnalyzerBenchmark {
+    private static final String[] STATUSES = {"passed", "passed", "passed", "failed", "skipped"};
+
+    @Param({"10", "200"})
+    public int reportFiles;
+
+    @Param({"20"})
+    public int scenariosPerFile;
+
+    private Path workingDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkFixture.installScenario();
+        workingDirectory = Files.createTempDirectory("blaze-report-analysis");
+        Path data = Files.createDirectories(workingDirectory.resolve("cucumber-report"));
+        for (int file = 0; file < reportFiles; file++) {
+            Files.write(data.resolve("Feature" + (file % 25) + "_" + file + ".json"),
+                    cucumberReport(file).toString().getBytes(StandardCharsets.UTF_8));
+        }
+        EnvironmentFactory.setReportAnalysisPath(data.toString(), workingDirectory.resolve("generated").toString());
+    }
+
+    /*
+     * Start each analysis without the previous output, as a run does; invocations take milliseconds, so the
+     * per invocation setup does not distort them
+     */
+    @Setup(Level.Invocation)
+    public void removeGeneratedReport() throws IOException {
+        delete(workingDirectory.resolve("generated"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        delete(workingDirectory);
+    }
+
+    @Benchmark
+    public void executeAnalysis() throws IOException {
+        new ReportAnalyzer().executeAnalysis();
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (Files.notExists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private JsonArray cucumberReport(int file) {
+        JsonArray elements = new JsonArray();
+        for (int scenario = 0; scenario < scenariosPerFile; scenario++) {
+            JsonArray tags = new JsonArray();
+            tags.add(tag(String.format("@%03d_scenario_%d", scenario % 1000, file)));
+            tags.add(tag(String.format("@%03d_related", (scenario + 1) % 1000)));
+            tags.add(tag("@regression"));
+
+            JsonArray steps = new JsonArray();
+            steps.add(step("Given ", "I open the page " + scenario, "passed"));
+            steps.add(step("When ", "I submit the form " + scenario, scenario % 7 == 0 ? "failed" : "passed"));
+            steps.add(step("Then ", "I see the confirmation " + scenario, STATUSES[(file + scenario) % STATUSES.length]));
+            steps.add(step("Then ", "I see the receipt " + scenario, STATUSES[(file + scenario + 1) % STATUSES.length]));
+
+            JsonObject element = new JsonObject();
+            element.addProperty("name", "Scenario " + scenario);
+            element.addProperty("type", "scenario");
+            element.add("tags", tags);
+            element.add("steps", steps);
+            elements.add(element);
+        }
+        JsonObject feature = new JsonObject();
+        feature.addProperty("uri", "features/feature" + file + ".feature");
+        feature.addProperty("name", "Feature " + file);
+        feature.add("elements", elements);
+        JsonArray report = new JsonArray();
+        report.add(feature);
+        return report;
+    }
+
+    private static JsonObject tag(String name) {
+        JsonObject tag = new JsonObject();
+        tag.addProperty("name", name);
+        return tag;
+    }
+
+    private static JsonObject step(String keyword, String name, String status) {
+        JsonObject result = new JsonObject();
+        result.addProperty("status", status);
+        JsonObject step = new JsonObject();
+        step.addProperty("keyword", keyword);
+        step.addProperty("name", name);
+        step.add("result", result);
+        return step;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.testingblaze.misclib.ConsoleFormatter;
+import com.testingblaze.report.LogLevel;
+import com.testingblaze.report.ReportController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReportController.write as steps call it: console output is off, so each call formats the html log and converts
+ * its ANSI colour codes to html tags. Consecutive logs differ, as duplicates are skipped.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReportWriteBenchmark {
+
+    /*
+     * Number of coloured fragments in a log line
+     */
+    @Param({"0", "4", "32"})
+    public int colouredFragments;
+
+    private ReportController reportController;
+    private final String[] logs = new String[2];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixture.installScenario();
+        reportController = new ReportController();
+        for (int i = 0; i < logs.length; i++) {
+            StringBuilder log = new StringBuilder("Element Presence/Creation Completed in 0." + i + " seconds");
+            for (int fragment = 0; fragment < colouredFragments; fragment++) {
+                ConsoleFormatter.COLOR color = ConsoleFormatter.COLOR.values()[fragment % ConsoleFormatter.COLOR.values().length];
+                log.append(' ').append(ConsoleFormatter.setTextColor(color, "fragment " + fragment))
+                        .append(' ').append(ConsoleFormatter.setBoldText("bold " + fragment));
+            }
+            logs[i] = log.toString();
+        }
+    }
+
+    @Benchmark
+    public void plainLog() {
+        reportController.write(LogLevel.TEST_BLAZE_INFO, nextLog());
+    }
+
+    @Benchmark
+    public void iconLog() {
+        reportController.write(LogLevel.TEST_BLAZE_IMPORTANT, ConsoleFormatter.COLOR.GREEN, ConsoleFormatter.ICON.TICK, nextLog());
+    }
+
+    private String nextLog() {
+        next ^= 1;
+        return logs[next];
+    }
+}
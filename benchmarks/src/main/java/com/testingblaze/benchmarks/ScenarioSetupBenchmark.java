@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.testingblaze.actionsfactory.abstracts.Action;
+import com.testingblaze.actionsfactory.abstracts.Element;
+import com.testingblaze.actionsfactory.abstracts.ElementProcessing;
+import com.testingblaze.actionsfactory.api.ActionFactoryInitiate;
+import com.testingblaze.actionsfactory.api.HGJGcYGHQk;
+import com.testingblaze.actionsfactory.elementfunctions.FindMyElements;
+import com.testingblaze.actionsfactory.elementfunctions.JavaScript;
+import com.testingblaze.actionsfactory.elementfunctions.Mobile;
+import com.testingblaze.actionsfactory.elementfunctions.MouseActions;
+import com.testingblaze.actionsfactory.elementfunctions.Ng;
+import com.testingblaze.actionsfactory.elementfunctions.Waits;
+import com.testingblaze.actionsfactory.type.BQUnpmlimY;
+import com.testingblaze.actionsfactory.type.DropDown;
+import com.testingblaze.actionsfactory.type.GmGEaSpros;
+import com.testingblaze.actionsfactory.type.Is;
+import com.testingblaze.actionsfactory.type.NJIc1dLxYv;
+import com.testingblaze.actionsfactory.type.Scroll;
+import com.testingblaze.actionsfactory.type.jucQcQgaaP;
+import com.testingblaze.controller.Avrb8aYEmH;
+import com.testingblaze.controller.DeviceBucket;
+import com.testingblaze.objects.InstanceRecording;
+import com.testingblaze.register.I;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per scenario setup of the action components, as TestSetupController does it: registered by
+ * ActionFactoryInitiate and created on first use, compared with creating all of them up front as before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScenarioSetupBenchmark {
+    private static final Class<?>[] COMPONENTS = {
+            HGJGcYGHQk.class, Waits.class, Action.class, jucQcQgaaP.class, JavaScript.class, ElementProcessing.class,
+            FindMyElements.class, Mobile.class, Ng.class, MouseActions.class, Element.class, Is.class,
+            BQUnpmlimY.class, NJIc1dLxYv.class, Scroll.class, DropDown.class, GmGEaSpros.class,
+    };
+
+    private DeviceBucket device;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixture.installScenarioWithStubDriver();
+        device = InstanceRecording.getInstance(DeviceBucket.class);
+    }
+
+    /*
+     * Registration and a click, the components a typical first step needs
+     */
+    @Benchmark
+    public Object lazyComponents() {
+        startScenario();
+        return I.amPerforming().click();
+    }
+
+    @Benchmark
+    public void allComponents(Blackhole blackhole) {
+        startScenario();
+        for (Class<?> component : COMPONENTS) {
+            blackhole.consume(InstanceRecording.getInstance(component));
+        }
+    }
+
+    private void startScenario() {
+        InstanceRecording.flushInstance();
+        InstanceRecording.recordInstance(DeviceBucket.class, device);
+        InstanceRecording.recordInstance(Avrb8aYEmH.class, new Avrb8aYEmH());
+        new ActionFactoryInitiate();
+    }
+}
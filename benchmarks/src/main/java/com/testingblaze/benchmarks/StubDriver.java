@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.benchmarks;
+
+import com.testingblaze.controller.qrYoTsOWwA;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A device whose driver answers every command in memory, as a page with one visible element would, and counts the
+ * commands. Each command stands for a round trip to a real driver, so element processing can be measured by the
+ * round trips it makes as well as by its cpu time.
+ */
+public final class StubDriver implements qrYoTsOWwA {
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final WebDriver driver;
+    private final WebElement element;
+
+    public StubDriver() {
+        this.element = (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebElement.class}, new Commands(this::answerElement));
+        this.driver = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebDriver.class, JavascriptExecutor.class, TakesScreenshot.class}, new Commands(this::answerDriver));
+    }
+
+    /**
+     * @return commands sent to the driver or its elements so far
+     */
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    @Override
+    public WebDriver getDriver() {
+        return driver;
+    }
+
+    @Override
+    public void setupController() {
+    }
+
+    @Override
+    public void stopServiceProvider() {
+    }
+
+    private Object answerDriver(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "findElement":
+                return element;
+            case "findElements":
+                return Collections.singletonList(element);
+            case "executeScript":
+            case "executeAsyncScript":
+                return answerScript((String) args[0]);
+            case "switchTo":
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebDriver.TargetLocator.class},
+                        new Commands(this::answerTargetLocator));
+            case "getWindowHandle":
+                return "stub-window";
+            case "getWindowHandles":
+                return Collections.singleton("stub-window");
+            case "getCurrentUrl":
+                return "http://localhost/stub";
+            case "getTitle":
+            case "getPageSource":
+                return "";
+            default:
+                return null;
+        }
+    }
+
+    private Object answerTargetLocator(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "alert":
+                throw new NoAlertPresentException();
+            case "activeElement":
+                return element;
+            default:
+                return driver;
+        }
+    }
+
+    private Object answerElement(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "findElement":
+                return element;
+            case "findElements":
+                return Collections.singletonList(element);
+            case "isDisplayed":
+            case "isEnabled":
+                return true;
+            case "isSelected":
+                return false;
+            case "getRect":
+                return new Rectangle(10, 10, 20, 100);
+            case "getLocation":
+                return new Point(10, 10);
+            case "getSize":
+                return new Rectangle(10, 10, 20, 100).getDimension();
+            case "getTagName":
+                return "input";
+            case "getText":
+            case "getAttribute":
+            case "getCssValue":
+                return "";
+            default:
+                return null;
+        }
+    }
+
+    private Object answerScript(String script) {
+        if (script.contains("readyState")) {
+            return "complete";
+        } else if (script.contains("loadEventEnd")) {
+            return 1L;
+        } else if (script.contains("getBoundingClientRect")) {
+            Map<String, Object> bounds = new LinkedHashMap<>();
+            bounds.put("top", 10.0);
+            bounds.put("left", 10.0);
+            bounds.put("right", 110.0);
+            bounds.put("bottom", 30.0);
+            bounds.put("width", 100.0);
+            return bounds;
+        } else if (script.contains("Width") || script.contains("Height")) {
+            return 1280L;
+        } else if (script.contains("jQuery") || script.contains("angular")) {
+            return true;
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface Answer {
+        Object answer(Method method, Object[] args);
+    }
+
+    private final class Commands implements InvocationHandler {
+        private final Answer answer;
+
+        private Commands(Answer answer) {
+            this.answer = answer;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "StubDriver";
+                default:
+                    roundTrips.incrementAndGet();
+                    return answer.answer(method, args);
+            }
+        }
+    }
+}
@@ -39,24 +39,28 @@ import com.testingblaze.actionsfactory.type.Scroll;
 import com.testingblaze.actionsfactory.type.NJIc1dLxYv;
 import com.testingblaze.objects.InstanceRecording;
 
+/**
+ * Registers the action components of a scenario. Each one is created on first use, after the components its
+ * constructor asks for, so subsystems a scenario never touches, e.g. angular or mouse actions, are never built.
+ */
 public class ActionFactoryInitiate {
     public ActionFactoryInitiate() {
-        InstanceRecording.recordInstance(HGJGcYGHQk.class, new HGJGcYGHQk());
-        InstanceRecording.recordInstance(Waits.class, new Waits());
-        InstanceRecording.recordInstance(Action.class, new GEqwlYLeImActions());
-        InstanceRecording.recordInstance(jucQcQgaaP.class, new jucQcQgaaP());
-        InstanceRecording.recordInstance(JavaScript.class, new JavaScript());
-        InstanceRecording.recordInstance(ElementProcessing.class, new HAbNpdpLKF());
-        InstanceRecording.recordInstance(FindMyElements.class, new FindMyElements());
-        InstanceRecording.recordInstance(Mobile.class, new Mobile());
-        InstanceRecording.recordInstance(Ng.class, new Ng());
-        InstanceRecording.recordInstance(MouseActions.class, new MouseActions());
-        InstanceRecording.recordInstance(Element.class, new ElementAPI());
-        InstanceRecording.recordInstance(Is.class, new Is());
-        InstanceRecording.recordInstance(BQUnpmlimY.class, new BQUnpmlimY());
-        InstanceRecording.recordInstance(NJIc1dLxYv.class, new NJIc1dLxYv());
-        InstanceRecording.recordInstance(Scroll.class, new Scroll());
-        InstanceRecording.recordInstance(DropDown.class, new DropDown());
-        InstanceRecording.recordInstance(GmGEaSpros.class, new GmGEaSpros());
+        InstanceRecording.recordProvider(HGJGcYGHQk.class, HGJGcYGHQk::new);
+        InstanceRecording.recordProvider(Waits.class, Waits::new);
+        InstanceRecording.recordProvider(Action.class, GEqwlYLeImActions::new);
+        InstanceRecording.recordProvider(jucQcQgaaP.class, jucQcQgaaP::new);
+        InstanceRecording.recordProvider(JavaScript.class, JavaScript::new);
+        InstanceRecording.recordProvider(ElementProcessing.class, HAbNpdpLKF::new);
+        InstanceRecording.recordProvider(FindMyElements.class, FindMyElements::new);
+        InstanceRecording.recordProvider(Mobile.class, Mobile::new);
+        InstanceRecording.recordProvider(Ng.class, Ng::new);
+        InstanceRecording.recordProvider(MouseActions.class, MouseActions::new);
+        InstanceRecording.recordProvider(Element.class, ElementAPI::new);
+        InstanceRecording.recordProvider(Is.class, Is::new);
+        InstanceRecording.recordProvider(BQUnpmlimY.class, BQUnpmlimY::new);
+        InstanceRecording.recordProvider(NJIc1dLxYv.class, NJIc1dLxYv::new);
+        InstanceRecording.recordProvider(Scroll.class, Scroll::new);
+        InstanceRecording.recordProvider(DropDown.class, DropDown::new);
+        InstanceRecording.recordProvider(GmGEaSpros.class, GmGEaSpros::new);
     }
 }
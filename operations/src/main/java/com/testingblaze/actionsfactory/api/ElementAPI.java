@@ -42,13 +42,11 @@ import java.util.List;
 public class ElementAPI implements Element {
 
     private final FindMyElements findMyElements;
-    private final Mobile findMobileElement;
-    private final Ng ng;
+    private Mobile findMobileElement;
+    private Ng ng;
 
     public ElementAPI() {
         this.findMyElements = InstanceRecording.getInstance(FindMyElements.class);
-        this.findMobileElement = InstanceRecording.getInstance(Mobile.class);
-        this.ng = InstanceRecording.getInstance(Ng.class);
     }
 
     @Override
@@ -158,9 +156,9 @@ public class ElementAPI implements Element {
             element = (WebElement) locator;
         }
         if (locator instanceof MobileBy) {
-            element = findMobileElement.getMobileElement((MobileBy) locator, processing);
+            element = mobile().getMobileElement((MobileBy) locator, processing);
         } else if (locator instanceof ByAngular.BaseBy) {
-            element = ng.getNgElement((ByAngular.BaseBy) locator, processing);
+            element = ng().getNgElement((ByAngular.BaseBy) locator, processing);
         } else if (locator instanceof By) {
             element = findMyElements.getElement((By) locator, processing);
         }
@@ -171,9 +169,9 @@ public class ElementAPI implements Element {
         List<WebElement> elementList = null;
 
         if (locator instanceof MobileBy) {
-            elementList = findMobileElement.getMobileElements((MobileBy) locator, processing);
+            elementList = mobile().getMobileElements((MobileBy) locator, processing);
         } else if (locator instanceof ByAngular.BaseBy) {
-            elementList = ng.getNgElements((ByAngular.BaseBy) locator, processing);
+            elementList = ng().getNgElements((ByAngular.BaseBy) locator, processing);
         } else if (locator instanceof By) {
             elementList = findMyElements.getElements((By) locator, processing);
         }
@@ -206,9 +204,9 @@ public class ElementAPI implements Element {
                 element = (WebElement) locator;
             }
             if (locator instanceof MobileBy) {
-                element = findMobileElement.getMobileElement((MobileBy) locator, processing);
+                element = mobile().getMobileElement((MobileBy) locator, processing);
             } else if (locator instanceof ByAngular.BaseBy) {
-                element = ng.getNgElement((ByAngular.BaseBy) locator, processing);
+                element = ng().getNgElement((ByAngular.BaseBy) locator, processing);
             } else if (locator instanceof By) {
                 element = findMyElements.getElement((By) locator, processing);
             }
@@ -224,9 +222,9 @@ public class ElementAPI implements Element {
     private <T> List<Elements> handleSelfHealingLocatorsInstanceOf(T locator, Boolean processing) {
         List<WebElement> elementList = null;
         if (locator instanceof MobileBy) {
-            elementList = findMobileElement.getMobileElements((MobileBy) locator, processing);
+            elementList = mobile().getMobileElements((MobileBy) locator, processing);
         } else if (locator instanceof ByAngular.BaseBy) {
-            elementList = ng.getNgElements((ByAngular.BaseBy) locator, processing);
+            elementList = ng().getNgElements((ByAngular.BaseBy) locator, processing);
         } else if (locator instanceof By) {
             elementList = findMyElements.getElements((By) locator, processing);
         }
@@ -281,4 +279,14 @@ public class ElementAPI implements Element {
             // No implementation required
         }
     }
+
+    private Mobile mobile() {
+        if (findMobileElement == null) findMobileElement = InstanceRecording.getInstance(Mobile.class);
+        return findMobileElement;
+    }
+
+    private Ng ng() {
+        if (ng == null) ng = InstanceRecording.getInstance(Ng.class);
+        return ng;
+    }
 }
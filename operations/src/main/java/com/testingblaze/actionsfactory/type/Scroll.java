@@ -35,7 +35,6 @@ public class Scroll {
     public Scroll() {
         elementApi = InstanceRecording.getInstance(Element.class);
         this.javaScript = InstanceRecording.getInstance(JavaScript.class);
-        this.actions = InstanceRecording.getInstance(MouseActions.class);
         this.mobile = InstanceRecording.getInstance(Mobile.class);
     }
 
@@ -124,7 +123,7 @@ public class Scroll {
      */
     public <T> void toMoveSlider(T sliderLocator) {
         WebElement slider = elementApi.locator(sliderLocator, true);
-        actions.moveSliderByOffset(slider, slider.getSize().getWidth() - 150, 0);
+        mouseActions().moveSliderByOffset(slider, slider.getSize().getWidth() - 150, 0);
     }
 
     /**
@@ -148,7 +147,7 @@ public class Scroll {
      * @author nauman.shahid
      */
     public <T> void toMoveSliderByOffset(T sliderLocator, int xOffset, int yOffset, Boolean processing) {
-        actions.moveSliderByOffset(elementApi.locator(sliderLocator, processing), xOffset, yOffset);
+        mouseActions().moveSliderByOffset(elementApi.locator(sliderLocator, processing), xOffset, yOffset);
     }
 
     /**
@@ -161,7 +160,7 @@ public class Scroll {
      * @param <T>
      */
     public <T> void toDragAndDropByOffset(T locator, int xOffset, int yOffset, Boolean processing) {
-        actions.mouseDragAndDrop(elementApi.locator(locator, processing), xOffset, yOffset);
+        mouseActions().mouseDragAndDrop(elementApi.locator(locator, processing), xOffset, yOffset);
     }
 
     /**
@@ -182,7 +181,7 @@ public class Scroll {
      * @author nauman.shahid
      */
     public <T> void withKeyBoardToElement(T locatorScrollTo) {
-        actions.scrollTo(elementApi.locator(locatorScrollTo, false));
+        mouseActions().scrollTo(elementApi.locator(locatorScrollTo, false));
     }
 
     /**
@@ -191,7 +190,7 @@ public class Scroll {
      * @author nauman.shahid
      */
     public <T> void withMouseToElement(T locatorScrollTo) {
-        actions.moveMouseToSpecificLocation(elementApi.locator(locatorScrollTo, false));
+        mouseActions().moveMouseToSpecificLocation(elementApi.locator(locatorScrollTo, false));
     }
 
     /**
@@ -209,7 +208,7 @@ public class Scroll {
      * @author nauman.shahid
      */
     public <T> void withMouseSlowlyToElement(T locatorScrollTo,Boolean processing) {
-        actions.moveMouseToSpecificLocationSlowly(elementApi.locator(locatorScrollTo, processing));
+        mouseActions().moveMouseToSpecificLocationSlowly(elementApi.locator(locatorScrollTo, processing));
     }
 
     /**
@@ -218,7 +217,7 @@ public class Scroll {
      * @author nauman.shahid
      */
     public <T> void withMouseToElementAndOffset(T locator, int xOffset, int yOffset) {
-        actions.moveMouseToTargetAndOffset(elementApi.locator(locator, false), xOffset, yOffset);
+        mouseActions().moveMouseToTargetAndOffset(elementApi.locator(locator, false), xOffset, yOffset);
     }
 
     /**
@@ -234,6 +233,9 @@ public class Scroll {
         return mobile.mobileScrolls();
     }
 
-}
-
 
+    private MouseActions mouseActions() {
+        if (actions == null) actions = InstanceRecording.getInstance(MouseActions.class);
+        return actions;
+    }
+}
@@ -73,6 +73,21 @@ public final class DeviceBucket implements qrYoTsOWwA {
         }
     }
 
+    private DeviceBucket(qrYoTsOWwA delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Wraps a given device instead of the one selected by -Ddevice, e.g. a stub driver for benchmarks.
+     * A factory rather than a constructor, so pico container keeps using the default one.
+     *
+     * @param delegate
+     * @return bucket handing out the delegate's driver
+     */
+    public static DeviceBucket wrapping(qrYoTsOWwA delegate) {
+        return new DeviceBucket(delegate);
+    }
+
     @Override
     public WebDriver getDriver() {
         return delegate.getDriver();
@@ -20,6 +20,7 @@
 package com.testingblaze.controller;
 
 import com.testingblaze.misclib.ConsoleFormatter;
+import com.testingblaze.misclib.ScreenshotStore;
 import com.testingblaze.objects.InstanceRecording;
 import com.testingblaze.register.I;
 import com.testingblaze.report.LogLevel;
@@ -143,7 +144,7 @@ public class ReportingLogsPlugin implements ConcurrentEventListener {
 
             if ("true".equalsIgnoreCase(System.getProperty("softAssertScreenshot"))) {
                 try {
-                    ScenarioController.getScenario().embed(((TakesScreenshot) InstanceRecording.getInstance(DeviceBucket.class).getDriver()).getScreenshotAs(OutputType.BYTES), "image/png", ScenarioController.getScenario().getSourceTagNames().toString());
+                    ScreenshotStore.embed(ScenarioController.getScenario(), ((TakesScreenshot) InstanceRecording.getInstance(DeviceBucket.class).getDriver()).getScreenshotAs(OutputType.BYTES), ScenarioController.getScenario().getSourceTagNames().toString());
                 } catch (Exception e) {
 
                 }
@@ -20,10 +20,14 @@
 package com.testingblaze.controller;
 
 import com.testingblaze.integrations.zFdcvgY0Kq;
+import com.testingblaze.misclib.DownloadWatcher;
 import com.testingblaze.misclib.ScreenCapture;
+import com.testingblaze.misclib.ScreenshotStore;
+import com.testingblaze.misclib.ValueStore;
 import com.testingblaze.objects.InstanceRecording;
 import com.testingblaze.register.EnvironmentFactory;
 import com.testingblaze.register.I;
+import com.testingblaze.register.RunContext;
 import io.cucumber.java.Scenario;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
@@ -73,10 +77,9 @@ public final class TestSetupController {
      */
     public void initializer(Scenario scenario) throws IOException, AWTException {
         ScenarioController.setScenario(scenario);
+        ValueStore.startScenario(scenario.getUri());
+        DownloadWatcher.startScenario();
 
-        if ("true".equalsIgnoreCase(System.getProperty("recordVideo"))) {
-            ScreenCapture.startRecordVideo();
-        }
         if ("true".equalsIgnoreCase(System.getProperty("docker"))) {
             DockerController.startDocker();
         }
@@ -90,6 +93,9 @@ public final class TestSetupController {
         } else {
             runBrowser();
         }
+        if ("true".equalsIgnoreCase(System.getProperty("recordVideo"))) {
+            ScreenCapture.startRecordVideo();
+        }
 
         ScenarioController.printInitialLogs();
     }
@@ -123,6 +129,7 @@ public final class TestSetupController {
             generateChromeBrowserPerformanceLog();
         }
         InstanceRecording.flushInstance();
+        ValueStore.endScenario();
     }
 
     private void generateChromeBrowserPerformanceLog() {
@@ -144,9 +151,9 @@ public final class TestSetupController {
     private void captureScreenshot() {
         try {
             if (System.getProperty("enableFullScreenShot") != null && "true".equalsIgnoreCase(System.getProperty("enableFullScreenShot"))) {
-                ScenarioController.getScenario().embed((I.amPerforming().conversionOf().imageToByteArray(I.amPerforming().snapShotTo().captureFullScreenShot(), "PNG")), "image/png", ScenarioController.getScenario().getSourceTagNames().toString());
+                ScreenshotStore.embed(ScenarioController.getScenario(), I.amPerforming().snapShotTo().captureFullPageScreenshot(), ScenarioController.getScenario().getSourceTagNames().toString());
             } else {
-                ScenarioController.getScenario().embed(((TakesScreenshot) device.getDriver()).getScreenshotAs(OutputType.BYTES), "image/png", ScenarioController.getScenario().getSourceTagNames().toString());
+                ScreenshotStore.embed(ScenarioController.getScenario(), ((TakesScreenshot) device.getDriver()).getScreenshotAs(OutputType.BYTES), ScenarioController.getScenario().getSourceTagNames().toString());
             }
         } catch (Exception e) {
             // Handles exception if thrown for any reason
@@ -170,6 +177,7 @@ public final class TestSetupController {
      */
     private void runBrowser() {
         device.setupController();
+        RunContext.captureDriver(device.getDriver());
         device.getDriver().get(EnvironmentFactory.getEnvironmentUrl());
     }
 
@@ -178,6 +186,7 @@ public final class TestSetupController {
      */
     private void runMobileApp() {
         device.setupController();
+        RunContext.captureDriver(device.getDriver());
     }
 
     /**
@@ -186,7 +195,7 @@ public final class TestSetupController {
      */
     private void browserWrapUp() throws IOException {
         if ("true".equalsIgnoreCase(System.getProperty("recordVideo"))) {
-            ScreenCapture.stopRecordVideo();
+            ScreenCapture.stopRecordVideo(ScenarioController.getScenario().isFailed() || "true".equalsIgnoreCase(System.getProperty("keepAllVideos")));
         }
 
         if ((ScenarioController.getScenario().isFailed()) || ("true".equalsIgnoreCase(System.getProperty("enableScreenShotsForAll")))) {
@@ -202,6 +211,9 @@ public final class TestSetupController {
      * @author nauman.shahid
      */
     private void mobileWrapUp() {
+        if ("true".equalsIgnoreCase(System.getProperty("recordVideo"))) {
+            ScreenCapture.stopRecordVideo(ScenarioController.getScenario().isFailed() || "true".equalsIgnoreCase(System.getProperty("keepAllVideos")));
+        }
         captureScreenshot();
         device.getDriver().quit();
         AppiumController.stopServer();
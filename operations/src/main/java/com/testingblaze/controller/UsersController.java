@@ -20,10 +20,10 @@
 package com.testingblaze.controller;
 
 
-import com.testingblaze.misclib.Properties_Logs;
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+import com.testingblaze.misclib.PropertyRegistry;
 import com.testingblaze.register.EnvironmentFactory;
 
-import java.io.IOException;
 
 /**
  * This interface implementation will ensure to fetch the users according to differennt environments.
@@ -52,9 +52,9 @@ public interface UsersController {
             url = EnvironmentFactory.getEnvironmentUrl();
         } else {
             try {
-                url = new Properties_Logs().ReadPropertyFile("environment.properties", EnvironmentFactory.getEnvironmentName() + portalType);
-            } catch (IOException e) {
-                e.printStackTrace();
+                url = PropertyRegistry.get("environment.properties", EnvironmentFactory.getEnvironmentName() + portalType);
+            } catch (TestingBlazeRunTimeException e) {
+                // no environment.properties, no url
             }
         }
         return url;
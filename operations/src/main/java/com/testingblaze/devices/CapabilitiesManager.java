@@ -1,6 +1,7 @@
 package com.testingblaze.devices;
 
 
+import com.testingblaze.misclib.DownloadWatcher;
 import com.testingblaze.register.EnvironmentFactory;
 import io.appium.java_client.remote.AndroidMobileCapabilityType;
 import io.appium.java_client.remote.IOSMobileCapabilityType;
@@ -8,6 +9,7 @@ import io.appium.java_client.remote.MobileCapabilityType;
 import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.MutableCapabilities;
 import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.UnexpectedAlertBehaviour;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.edge.EdgeOptions;
 import org.openqa.selenium.firefox.FirefoxBinary;
@@ -73,7 +75,7 @@ public class CapabilitiesManager {
                 "profile.default_content_settings.popups", 0,
                 "download.prompt_for_download", "false",
                 "download.directory_upgrade", "true",
-                "download.default_directory", System.getProperty("user.dir") + File.separatorChar + "target"
+                "download.default_directory", DownloadWatcher.getDownloadDirectory().toString()
         ));
 
         if (EnvironmentFactory.isHeadless()) {
@@ -87,6 +89,7 @@ public class CapabilitiesManager {
         if (!"local".equalsIgnoreCase(EnvironmentFactory.getHub())) {
             setBrowserCapabilities(chromeOptions);
         }
+        setRecordingCapabilities(chromeOptions);
 
         return chromeOptions;
     }
@@ -101,7 +104,7 @@ public class CapabilitiesManager {
         }
         profile.setAssumeUntrustedCertificateIssuer(true);
         profile.setPreference("browser.download.folderList", 2);
-        profile.setPreference("browser.download.dir", System.getProperty("user.dir") + File.pathSeparatorChar + "target");
+        profile.setPreference("browser.download.dir", DownloadWatcher.getDownloadDirectory().toString());
         profile.setPreference("browser.download.manager.showWhenStarting", false);
         profile.setPreference("browser.helperApps.neverAsk.saveToDisk", "text/plain,application/octet-stream,application/pdf,application/x-pdf,application/vnd.pdf,text/csv,application/java-archive,application/x-msexcel,application/excel,application/vnd.openxmlformats-officedocument.wordprocessingml.document,application/x-excel,application/vnd.ms-excel,image/png,image/jpeg,text/html,application/msword,application/xml,application/vnd.microsoft.portable-executable");
         profile.setPreference("browser.helperApps.alwaysAsk.force", false);
@@ -129,6 +132,7 @@ public class CapabilitiesManager {
         if (!"local".equalsIgnoreCase(EnvironmentFactory.getHub())) {
             setBrowserCapabilities(firefoxOptions);
         }
+        setRecordingCapabilities(firefoxOptions);
 
         return firefoxOptions;
     }
@@ -160,6 +164,7 @@ public class CapabilitiesManager {
         if (!"local".equalsIgnoreCase(EnvironmentFactory.getHub())) {
             setBrowserCapabilities(edgeOptions);
         }
+        setRecordingCapabilities(edgeOptions);
 
         return edgeOptions;
     }
@@ -266,6 +271,16 @@ public class CapabilitiesManager {
         return iosCapabilities;
     }
 
+    /**
+     * The video recorder sends commands to the session in the background. With the w3c default "dismiss and notify"
+     * its commands would dismiss an alert the test is about to handle, so open prompts are left as they are.
+     */
+    private static void setRecordingCapabilities(MutableCapabilities browserCapabilities) {
+        if ("true".equalsIgnoreCase(System.getProperty("recordVideo"))) {
+            browserCapabilities.setCapability(CapabilityType.UNHANDLED_PROMPT_BEHAVIOUR, UnexpectedAlertBehaviour.IGNORE);
+        }
+    }
+
     private static void setBrowserCapabilities(MutableCapabilities browserCapabilities) {
         browserCapabilities.setCapability(CapabilityType.SUPPORTS_JAVASCRIPT, true);
 
@@ -21,9 +21,10 @@ package com.testingblaze.healing_api;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.testingblaze.http.HttpConnectionPool;
+import com.testingblaze.http.HttpLogPolicy;
 import com.testingblaze.register.I;
 import com.testingblaze.report.LogLevel;
-import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
@@ -172,12 +173,7 @@ public final class InternalHttp {
         }
 
         // Make sure that GET calls do not use relaxed HTTPS validation
-        RequestSpecification request;
-        if (callType == CallTypes.GET) {
-            request = RestAssured.given();
-        } else {
-            request = RestAssured.given().relaxedHTTPSValidation();
-        }
+        RequestSpecification request = HttpConnectionPool.given(callType != CallTypes.GET);
 
         // Construct the request
         request.accept("application/json");
@@ -211,6 +207,7 @@ public final class InternalHttp {
 
         // Make the actual call
         Response response = null;
+        long startTime = System.nanoTime();
         switch (callType) {
             case GET:
                 response = request.get(endPoint);
@@ -228,6 +225,7 @@ public final class InternalHttp {
                 response = request.delete(endPoint);
                 break;
         }
+        HttpConnectionPool.metrics().record(callType.name(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
         try {
             //reportsLogger(callType, response);
         } catch (Exception e) {
@@ -240,16 +238,16 @@ public final class InternalHttp {
     private void reportsLogger(CallTypes callType, Response response) {
         I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, callType.name() + " Api call Response details:");
         I.amPerforming().updatingOfReportWith().write(LogLevel.EMPTY_LABEL, "1 - Response status: " + response.statusLine());
-        I.amPerforming().updatingOfReportWith().write(LogLevel.EMPTY_LABEL, "2 - Response time: " + response.timeIn(TimeUnit.SECONDS) + " sec");
+        I.amPerforming().updatingOfReportWith().write(LogLevel.EMPTY_LABEL, "2 - Response time: " + response.timeIn(TimeUnit.MILLISECONDS) + " ms");
         if (System.getProperty("postTestResults") == null)
-            I.amPerforming().updatingOfReportWith().write(LogLevel.EMPTY_LABEL, "3 - Response body: " + response.body().asString());
+            I.amPerforming().updatingOfReportWith().write(LogLevel.EMPTY_LABEL, "3 - Response body: " + HttpLogPolicy.bound(response.body().asString(), true));
     }
 
     private void consoleLogger(CallTypes callType, Response response) {
         System.out.println(callType.name() + " Api call Response details:");
         System.out.println("1 - Response status: " + response.statusLine());
-        System.out.println("2 - Response time: " + response.timeIn(TimeUnit.SECONDS) + " sec");
+        System.out.println("2 - Response time: " + response.timeIn(TimeUnit.MILLISECONDS) + " ms");
         if (System.getProperty("postTestResults") == null)
-            System.out.println("3 - Response body: " + response.body().asString());
+            System.out.println("3 - Response body: " + HttpLogPolicy.bound(response.body().asString(), false));
     }
 }
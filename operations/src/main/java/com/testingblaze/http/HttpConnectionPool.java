@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.http;
+
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared http layer for all RestAssured based calls (RestfulWebServices, InternalHttp).
+ * <p>
+ * RestAssured opens a new http client per request by default. This class hands out request specifications backed
+ * by a single pooled, keep-alive client so connections are re-used across calls and threads. Everything else is taken
+ * from the global RestAssured.config, also when a project changes it during the run.
+ * <ul>
+ *     <li>-DhttpMaxConnections : total pooled connections (default 50)</li>
+ *     <li>-DhttpMaxConnectionsPerHost : concurrent connections per host (default 10)</li>
+ *     <li>-DhttpMetrics=true : print latency and throughput summary at the end of the run</li>
+ * </ul>
+ */
+public final class HttpConnectionPool {
+    private static final int maxConnections = System.getProperty("httpMaxConnections") != null ? Integer.parseInt(System.getProperty("httpMaxConnections")) : 50;
+    private static final int maxConnectionsPerHost = System.getProperty("httpMaxConnectionsPerHost") != null ? Integer.parseInt(System.getProperty("httpMaxConnectionsPerHost")) : 10;
+    private static final long connectionTimeToLiveInSeconds = 60;
+    private static final Metrics metrics = new Metrics();
+    private static volatile PooledConfig strictConfig;
+    private static volatile PooledConfig relaxedConfig;
+
+    static {
+        if ("true".equalsIgnoreCase(System.getProperty("httpMetrics"))) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(metrics.summary())));
+        }
+    }
+
+    private HttpConnectionPool() {
+    }
+
+    /**
+     * Start a request on the shared pooled client.
+     * Strict and relaxed https validation use separate pools, so relaxing ssl for one call never leaks into the other.
+     *
+     * @param relaxedHttpsValidation true to skip certificate validation
+     * @return request specification bound to the pooled client
+     */
+    public static RequestSpecification given(boolean relaxedHttpsValidation) {
+        if (relaxedHttpsValidation) {
+            return RestAssured.given().config(getRelaxedConfig()).relaxedHTTPSValidation();
+        }
+        return RestAssured.given().config(getStrictConfig());
+    }
+
+    /**
+     * latency and throughput of all calls made through the pool
+     *
+     * @return metrics
+     */
+    public static Metrics metrics() {
+        return metrics;
+    }
+
+    private static RestAssuredConfig getStrictConfig() {
+        if (strictConfig == null) {
+            synchronized (HttpConnectionPool.class) {
+                if (strictConfig == null) strictConfig = new PooledConfig(createClient(), RestAssured.config());
+            }
+        }
+        return strictConfig.current();
+    }
+
+    private static RestAssuredConfig getRelaxedConfig() {
+        if (relaxedConfig == null) {
+            synchronized (HttpConnectionPool.class) {
+                if (relaxedConfig == null) relaxedConfig = new PooledConfig(createClient(), RestAssured.config());
+            }
+        }
+        return relaxedConfig.current();
+    }
+
+    private static DefaultHttpClient createClient() {
+        PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault(),
+                connectionTimeToLiveInSeconds, TimeUnit.SECONDS);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        return new DefaultHttpClient(connectionManager);
+    }
+
+    /**
+     * The global RestAssured config with the pooled client, derived again whenever the global config is replaced
+     */
+    private static final class PooledConfig {
+        private final DefaultHttpClient client;
+        private final RestAssuredConfig base;
+        private final RestAssuredConfig derived;
+        private volatile PooledConfig latest = this;
+
+        private PooledConfig(DefaultHttpClient client, RestAssuredConfig base) {
+            this.client = client;
+            this.base = base;
+            this.derived = base
+                    .httpClient(base.getHttpClientConfig().httpClientFactory(() -> client).reuseHttpClientInstance())
+                    .decoderConfig(base.getDecoderConfig().contentDecoders(DecoderConfig.ContentDecoder.GZIP, DecoderConfig.ContentDecoder.DEFLATE));
+        }
+
+        private RestAssuredConfig current() {
+            PooledConfig config = latest;
+            RestAssuredConfig global = RestAssured.config();
+            if (config.base != global) {
+                config = new PooledConfig(client, global);
+                latest = config;
+            }
+            return config.derived;
+        }
+    }
+
+    /**
+     * Thread safe latency and throughput counters per call type
+     */
+    public static final class Metrics {
+        private final long startTime = System.nanoTime();
+        private final Map<String, LongAdder> callCount = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> totalLatency = new ConcurrentHashMap<>();
+        private final Map<String, LongAccumulator> maxLatency = new ConcurrentHashMap<>();
+
+        /**
+         * record a completed call
+         *
+         * @param callType      GET, POST etc
+         * @param elapsedMillis round trip time of the call
+         */
+        public void record(String callType, long elapsedMillis) {
+            callCount.computeIfAbsent(callType, key -> new LongAdder()).increment();
+            totalLatency.computeIfAbsent(callType, key -> new LongAdder()).add(elapsedMillis);
+            maxLatency.computeIfAbsent(callType, key -> new LongAccumulator(Math::max, 0)).accumulate(elapsedMillis);
+        }
+
+        public long getCallCount(String callType) {
+            return callCount.containsKey(callType) ? callCount.get(callType).sum() : 0;
+        }
+
+        public long getAverageLatencyInMillis(String callType) {
+            long count = getCallCount(callType);
+            return count == 0 ? 0 : totalLatency.get(callType).sum() / count;
+        }
+
+        public long getMaxLatencyInMillis(String callType) {
+            return maxLatency.containsKey(callType) ? maxLatency.get(callType).get() : 0;
+        }
+
+        /**
+         * calls per second since the pool was first used
+         *
+         * @return throughput
+         */
+        public double getThroughputPerSecond() {
+            long total = callCount.values().stream().mapToLong(LongAdder::sum).sum();
+            double elapsedSeconds = (System.nanoTime() - startTime) / 1_000_000_000d;
+            return elapsedSeconds == 0 ? 0 : total / elapsedSeconds;
+        }
+
+        public String summary() {
+            StringBuilder summary = new StringBuilder("-------------------- Http Call Metrics -----------------------");
+            for (String callType : callCount.keySet()) {
+                summary.append(System.lineSeparator())
+                        .append(callType).append(" -> calls: ").append(getCallCount(callType))
+                        .append(", avg: ").append(getAverageLatencyInMillis(callType)).append(" ms")
+                        .append(", max: ").append(getMaxLatencyInMillis(callType)).append(" ms");
+            }
+            summary.append(System.lineSeparator()).append(String.format("Throughput: %.2f calls/sec", getThroughputPerSecond()));
+            return summary.toString();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.http;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps request and response bodies in http logs bounded, so multi-MB payloads are not pushed through the report.
+ * <ul>
+ *     <li>-DhttpLogMaxBodyLength : characters of a body written to the logs (default 2000)</li>
+ *     <li>-DhttpLogSampleRate : log the bodies of every nth call only (default 1, every call); the request and response
+ *     body of a call are sampled together</li>
+ *     <li>-DhttpLogSpillBodies=true : write full truncated/unsampled bodies gzipped to target/Automation-Report/http-logs
+ *     and link them from the report, relative to the report page with -DhttpLogReferencePrefix (default "../http-logs/")</li>
+ * </ul>
+ */
+public final class HttpLogPolicy {
+    private static final int maxBodyLength = System.getProperty("httpLogMaxBodyLength") != null ? Integer.parseInt(System.getProperty("httpLogMaxBodyLength")) : 2000;
+    private static final int sampleRate = System.getProperty("httpLogSampleRate") != null ? Integer.parseInt(System.getProperty("httpLogSampleRate")) : 1;
+    private static final boolean spillBodies = "true".equalsIgnoreCase(System.getProperty("httpLogSpillBodies"));
+    private static final String referencePrefix = System.getProperty("httpLogReferencePrefix") != null ? System.getProperty("httpLogReferencePrefix") : "../http-logs/";
+    private static final AtomicLong callCounter = new AtomicLong();
+    private static final AtomicLong bodyCounter = new AtomicLong();
+
+    private HttpLogPolicy() {
+    }
+
+    /**
+     * @return number of a new call, to bound its request and response body with the same sampling
+     */
+    public static long nextCall() {
+        return callCounter.incrementAndGet();
+    }
+
+    /**
+     * Bound the body of a call of its own for logging
+     *
+     * @param body      full body
+     * @param forReport true to link a spilled body as html, false to print its path for console
+     * @return the body if small enough, otherwise the truncated body or a placeholder, with a reference to the full body when spilled
+     */
+    public static String bound(String body, boolean forReport) {
+        return bound(nextCall(), body, forReport);
+    }
+
+    /**
+     * Bound a body of a call for logging
+     *
+     * @param call      see {@link #nextCall()}
+     * @param body      full body
+     * @param forReport true to link a spilled body as html, false to print its path for console
+     * @return the body if small enough, otherwise the truncated body or a placeholder, with a reference to the full body when spilled
+     */
+    public static String bound(long call, String body, boolean forReport) {
+        if (body == null) return null;
+        boolean isSampled = sampleRate <= 1 || (call - 1) % sampleRate == 0;
+        if (isSampled && body.length() <= maxBodyLength) return body;
+
+        String fullBodyReference = spillBodies ? spill(bodyCounter.incrementAndGet(), body, forReport) : "";
+        if (!isSampled) return "[body not sampled, " + body.length() + " chars]" + fullBodyReference;
+        return body.substring(0, maxBodyLength) + "... [truncated " + (body.length() - maxBodyLength) + " chars]" + fullBodyReference;
+    }
+
+    /**
+     * File names carry the process id so parallel forks never overwrite each other
+     */
+    private static String spill(long bodyNumber, String body, boolean forReport) {
+        try {
+            Path directory = Files.createDirectories(Paths.get(System.getProperty("user.dir"), "target", "Automation-Report", "http-logs"));
+            String name = ProcessHandle.current().pid() + "-" + bodyNumber + ".txt.gz";
+            Path file = directory.resolve(name);
+            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8)) {
+                writer.write(body);
+            }
+            // relative, so the link survives moving or publishing the report directory
+            return forReport ? " <a href='" + referencePrefix + name + "'>full body</a>" : " full body: " + file;
+        } catch (IOException e) {
+            // logging must never fail the call
+            return "";
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.http;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares two json documents by walking both streams in lockstep, without building full trees.
+ * <p>
+ * Only the keys of the actual document are validated, extra keys in expected are skipped. Objects whose keys come in
+ * a different order fall back to comparing the remainder of that object as trees. Arrays of primitives are compared
+ * regardless of order.
+ * <p>
+ * Ignored keys may be plain key names (ignored at any depth) or json pointers such as /name/lastname.
+ * A '*' segment in a pointer matches any key or array index, e.g. /users/*&#47;id
+ * <p>
+ * Differences are reported as json pointers and the comparison stops after maxDifferences.
+ */
+public final class JsonStreamComparator {
+    private static final JsonParser parser = new JsonParser();
+    private final Set<String> ignoredKeys = new HashSet<>();
+    private final List<String[]> ignoredPaths = new ArrayList<>();
+    private final int maxDifferences;
+    private final List<String> differences = new ArrayList<>();
+
+    /**
+     * @param dontCheckTheseKeys key names or json pointers that should not be part of validation
+     * @param maxDifferences     stop after this many differences
+     */
+    public JsonStreamComparator(Set<String> dontCheckTheseKeys, int maxDifferences) {
+        for (String key : dontCheckTheseKeys) {
+            if (key.startsWith("/")) ignoredPaths.add(key.substring(1).split("/", -1));
+            else ignoredKeys.add(key);
+        }
+        this.maxDifferences = Math.max(1, maxDifferences);
+    }
+
+    /**
+     * Compare expected and actual documents
+     *
+     * @param expected reader over expected json
+     * @param actual   reader over actual json
+     * @return differences as "json-pointer: message", empty when documents match
+     * @throws IOException if either document is not readable json
+     */
+    public List<String> compare(Reader expected, Reader actual) throws IOException {
+        differences.clear();
+        compareValue(new JsonReader(expected), new JsonReader(actual), "", null);
+        return Collections.unmodifiableList(new ArrayList<>(differences));
+    }
+
+    private void compareValue(JsonReader expected, JsonReader actual, String path, String key) throws IOException {
+        if (isIgnored(path, key)) {
+            expected.skipValue();
+            actual.skipValue();
+            return;
+        }
+        JsonToken expectedToken = expected.peek();
+        JsonToken actualToken = actual.peek();
+        if (expectedToken == JsonToken.BEGIN_OBJECT && actualToken == JsonToken.BEGIN_OBJECT) {
+            compareObject(expected, actual, path);
+        } else if (expectedToken == JsonToken.BEGIN_ARRAY && actualToken == JsonToken.BEGIN_ARRAY) {
+            compareArray(expected, actual, path);
+        } else if (isPrimitive(expectedToken) && isPrimitive(actualToken)) {
+            String expectedValue = readPrimitive(expected);
+            String actualValue = readPrimitive(actual);
+            if (!expectedValue.equals(actualValue)) {
+                addDifference(path, "expected " + expectedValue + " but was " + actualValue);
+            }
+        } else {
+            addDifference(path, "expected " + expectedToken + " but was " + actualToken);
+            expected.skipValue();
+            actual.skipValue();
+        }
+    }
+
+    private void compareObject(JsonReader expected, JsonReader actual, String path) throws IOException {
+        expected.beginObject();
+        actual.beginObject();
+        while (actual.hasNext()) {
+            String actualName = actual.nextName();
+            String childPath = path + "/" + escape(actualName);
+            if (!expected.hasNext()) {
+                addDifference(childPath, "not present in expected response");
+                if (isFull()) return;
+                actual.skipValue();
+                continue;
+            }
+            String expectedName = expected.nextName();
+            if (!actualName.equals(expectedName)) {
+                // both objects are fully consumed by the fallback
+                compareRemainderAsTrees(expected, expectedName, actual, actualName, path);
+                return;
+            }
+            compareValue(expected, actual, childPath, actualName);
+            if (isFull()) return;
+        }
+        while (expected.hasNext()) {
+            expected.nextName();
+            expected.skipValue();
+        }
+        expected.endObject();
+        actual.endObject();
+    }
+
+    /**
+     * Keys are in a different order, so buffer what is left of this object on both sides and match by key
+     */
+    private void compareRemainderAsTrees(JsonReader expected, String expectedName, JsonReader actual, String actualName, String path) throws IOException {
+        Map<String, JsonElement> expectedMembers = readRemainingMembers(expected, expectedName);
+        Map<String, JsonElement> actualMembers = readRemainingMembers(actual, actualName);
+        for (Map.Entry<String, JsonElement> member : actualMembers.entrySet()) {
+            String childPath = path + "/" + escape(member.getKey());
+            if (!expectedMembers.containsKey(member.getKey())) {
+                if (!isIgnored(childPath, member.getKey())) addDifference(childPath, "not present in expected response");
+            } else {
+                compareTree(expectedMembers.get(member.getKey()), member.getValue(), childPath, member.getKey());
+            }
+            if (isFull()) return;
+        }
+    }
+
+    /**
+     * The buffered counterpart of {@link #compareValue}, with the same rules and messages
+     */
+    private void compareTree(JsonElement expected, JsonElement actual, String path, String key) {
+        if (isIgnored(path, key)) {
+            return;
+        }
+        if (expected.isJsonObject() && actual.isJsonObject()) {
+            JsonObject expectedObject = expected.getAsJsonObject();
+            for (Map.Entry<String, JsonElement> member : actual.getAsJsonObject().entrySet()) {
+                String childPath = path + "/" + escape(member.getKey());
+                if (!expectedObject.has(member.getKey())) {
+                    if (!isIgnored(childPath, member.getKey())) addDifference(childPath, "not present in expected response");
+                } else {
+                    compareTree(expectedObject.get(member.getKey()), member.getValue(), childPath, member.getKey());
+                }
+                if (isFull()) return;
+            }
+        } else if (expected.isJsonArray() && actual.isJsonArray()) {
+            compareTreeArray(expected.getAsJsonArray(), actual.getAsJsonArray(), path);
+        } else if (isPrimitive(expected) && isPrimitive(actual)) {
+            String expectedValue = primitiveOf(expected);
+            String actualValue = primitiveOf(actual);
+            if (!expectedValue.equals(actualValue)) {
+                addDifference(path, "expected " + expectedValue + " but was " + actualValue);
+            }
+        } else {
+            addDifference(path, "expected " + tokenOf(expected) + " but was " + tokenOf(actual));
+        }
+    }
+
+    private void compareTreeArray(JsonArray expected, JsonArray actual, String path) {
+        List<String> expectedPrimitives = new ArrayList<>();
+        List<String> actualPrimitives = new ArrayList<>();
+        for (int index = 0; index < actual.size() && index < expected.size(); index++) {
+            if (isPrimitive(expected.get(index)) && isPrimitive(actual.get(index))) {
+                expectedPrimitives.add(primitiveOf(expected.get(index)));
+                actualPrimitives.add(primitiveOf(actual.get(index)));
+            } else {
+                compareTree(expected.get(index), actual.get(index), path + "/" + index, null);
+                if (isFull()) return;
+            }
+        }
+        if (expected.size() != actual.size()) {
+            addDifference(path, "expected " + expected.size() + " elements but was " + actual.size());
+        } else if (!expectedPrimitives.equals(actualPrimitives)) {
+            Collections.sort(expectedPrimitives);
+            Collections.sort(actualPrimitives);
+            if (!expectedPrimitives.equals(actualPrimitives)) {
+                addDifference(path, "expected elements " + expectedPrimitives + " but was " + actualPrimitives + " in any order");
+            }
+        }
+    }
+
+    private boolean isPrimitive(JsonElement element) {
+        return element.isJsonPrimitive() || element.isJsonNull();
+    }
+
+    /**
+     * formatted as {@link #readPrimitive} does
+     */
+    private String primitiveOf(JsonElement element) {
+        if (element.isJsonNull()) return "null";
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        return primitive.isString() ? "\"" + primitive.getAsString() + "\"" : primitive.getAsString();
+    }
+
+    private JsonToken tokenOf(JsonElement element) {
+        if (element.isJsonObject()) return JsonToken.BEGIN_OBJECT;
+        if (element.isJsonArray()) return JsonToken.BEGIN_ARRAY;
+        if (element.isJsonNull()) return JsonToken.NULL;
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        return primitive.isString() ? JsonToken.STRING : primitive.isNumber() ? JsonToken.NUMBER : JsonToken.BOOLEAN;
+    }
+
+    private Map<String, JsonElement> readRemainingMembers(JsonReader reader, String currentName) throws IOException {
+        Map<String, JsonElement> members = new LinkedHashMap<>();
+        members.put(currentName, parser.parse(reader));
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            members.put(name, parser.parse(reader));
+        }
+        reader.endObject();
+        return members;
+    }
+
+    private void compareArray(JsonReader expected, JsonReader actual, String path) throws IOException {
+        expected.beginArray();
+        actual.beginArray();
+        List<String> expectedPrimitives = new ArrayList<>();
+        List<String> actualPrimitives = new ArrayList<>();
+        int actualSize = 0;
+        int expectedSize = 0;
+        while (actual.hasNext()) {
+            if (!expected.hasNext()) {
+                actual.skipValue();
+            } else if (isPrimitive(expected.peek()) && isPrimitive(actual.peek())) {
+                expectedPrimitives.add(readPrimitive(expected));
+                actualPrimitives.add(readPrimitive(actual));
+                expectedSize++;
+            } else {
+                compareValue(expected, actual, path + "/" + actualSize, null);
+                if (isFull()) return;
+                expectedSize++;
+            }
+            actualSize++;
+        }
+        while (expected.hasNext()) {
+            expected.skipValue();
+            expectedSize++;
+        }
+        expected.endArray();
+        actual.endArray();
+
+        if (expectedSize != actualSize) {
+            addDifference(path, "expected " + expectedSize + " elements but was " + actualSize);
+        } else if (!expectedPrimitives.equals(actualPrimitives)) {
+            Collections.sort(expectedPrimitives);
+            Collections.sort(actualPrimitives);
+            if (!expectedPrimitives.equals(actualPrimitives)) {
+                addDifference(path, "expected elements " + expectedPrimitives + " but was " + actualPrimitives + " in any order");
+            }
+        }
+    }
+
+    private String readPrimitive(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+                return "\"" + reader.nextString() + "\"";
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            default:
+                reader.nextNull();
+                return "null";
+        }
+    }
+
+    private boolean isPrimitive(JsonToken token) {
+        return token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN || token == JsonToken.NULL;
+    }
+
+    private boolean isIgnored(String path, String key) {
+        if (key != null && ignoredKeys.contains(key)) return true;
+        if (ignoredPaths.isEmpty() || path.isEmpty()) return false;
+        String[] segments = path.substring(1).split("/", -1);
+        for (String[] ignoredPath : ignoredPaths) {
+            if (ignoredPath.length != segments.length) continue;
+            boolean matches = true;
+            for (int i = 0; i < segments.length && matches; i++) {
+                matches = "*".equals(ignoredPath[i]) || ignoredPath[i].equals(segments[i]);
+            }
+            if (matches) return true;
+        }
+        return false;
+    }
+
+    private void addDifference(String path, String message) {
+        if (!isFull()) differences.add((path.isEmpty() ? "/" : path) + ": " + message);
+    }
+
+    private boolean isFull() {
+        return differences.size() >= maxDifferences;
+    }
+
+    /**
+     * json pointer escaping, ~ becomes ~0 and / becomes ~1
+     */
+    private static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+}
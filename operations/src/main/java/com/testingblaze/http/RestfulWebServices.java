@@ -21,18 +21,32 @@ package com.testingblaze.http;
 
 import com.google.gson.*;
 import com.testingblaze.controller.TestingBlazeGlobal;
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+import com.testingblaze.misclib.ValueStore;
 import com.testingblaze.register.I;
 import com.testingblaze.report.LogLevel;
-import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
 import org.apache.commons.lang.StringUtils;
 import org.testng.Assert;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * @author nauman.shahid
@@ -41,6 +55,9 @@ import java.util.concurrent.TimeUnit;
  */
 public final class RestfulWebServices {
     private static final Gson gson = new Gson();
+    private static final int maxJsonDifferences = System.getProperty("jsonMaxDifferences") != null ? Integer.parseInt(System.getProperty("jsonMaxDifferences")) : 10;
+    private static final ExecutorService asyncExecutor = createAsyncExecutor();
+    private static final ThreadLocal<Boolean> isAsyncCall = ThreadLocal.withInitial(() -> false);
     public boolean isJvmHookOn=false;
 
     public enum CallTypes {GET, POST, PATCH, DELETE, PUT}
@@ -151,6 +168,111 @@ public final class RestfulWebServices {
         return makeCall(CallTypes.DELETE, jsonElement, stringBody, endPoint, key, keyValue, authToken);
     }
 
+    /**
+     * Make a get call without blocking the scenario thread.
+     * Logs of async calls go to the console, the report is only written from the scenario thread.
+     *
+     * @param endPoint
+     * @param key
+     * @param keyValue
+     * @return future response
+     */
+    public CompletableFuture<Response> getCallAsync(String endPoint, String key, String keyValue) {
+        return supplyAsync(() -> getCall(endPoint, key, keyValue));
+    }
+
+    /**
+     * make a post call without blocking the scenario thread
+     *
+     * @param jsonElement
+     * @param stringBody
+     * @param endPoint
+     * @param key
+     * @param keyValue
+     * @param authToken
+     * @return future response
+     */
+    public CompletableFuture<Response> postCallAsync(JsonElement jsonElement, String stringBody, String endPoint, String key, String keyValue,
+                                                     String authToken) {
+        return supplyAsync(() -> postCall(jsonElement, stringBody, endPoint, key, keyValue, authToken));
+    }
+
+    /**
+     * make a put call without blocking the scenario thread
+     *
+     * @param jsonElement
+     * @param stringBody
+     * @param endPoint
+     * @param key
+     * @param keyValue
+     * @param authToken
+     * @return future response
+     */
+    public CompletableFuture<Response> putCallAsync(JsonElement jsonElement, String stringBody, String endPoint, String key, String keyValue,
+                                                    String authToken) {
+        return supplyAsync(() -> putCall(jsonElement, stringBody, endPoint, key, keyValue, authToken));
+    }
+
+    /**
+     * make a patch call without blocking the scenario thread
+     *
+     * @param jsonElement
+     * @param stringBody
+     * @param endPoint
+     * @param key
+     * @param keyValue
+     * @param authToken
+     * @return future response
+     */
+    public CompletableFuture<Response> patchCallAsync(JsonElement jsonElement, String stringBody, String endPoint, String key, String keyValue,
+                                                      String authToken) {
+        return supplyAsync(() -> patchCall(jsonElement, stringBody, endPoint, key, keyValue, authToken));
+    }
+
+    /**
+     * make a delete call without blocking the scenario thread
+     *
+     * @param jsonElement
+     * @param stringBody
+     * @param endPoint
+     * @param key
+     * @param keyValue
+     * @param authToken
+     * @return future response
+     */
+    public CompletableFuture<Response> deleteCallAsync(JsonElement jsonElement, String stringBody, String endPoint, String key, String keyValue,
+                                                       String authToken) {
+        return supplyAsync(() -> DeleteCall(jsonElement, stringBody, endPoint, key, keyValue, authToken));
+    }
+
+    /**
+     * Runs independent calls concurrently, never more than maxConcurrency at a time, and waits for all of them.
+     * e.g
+     * fanOut(List.of(() -> postCall(user1, null, url, key, value, null), () -> postCall(user2, null, url, key, value, null)), 5)
+     *
+     * @param calls          calls to execute, typically lambdas over getCall/postCall etc
+     * @param maxConcurrency maximum calls in flight
+     * @return responses in the same order as calls
+     */
+    public List<Response> fanOut(List<Supplier<Response>> calls, int maxConcurrency) {
+        Semaphore inFlight = new Semaphore(Math.max(1, maxConcurrency));
+        List<CompletableFuture<Response>> futures = new ArrayList<>();
+        long startTime = System.nanoTime();
+        for (Supplier<Response> call : calls) {
+            inFlight.acquireUninterruptibly();
+            futures.add(supplyAsync(call).whenComplete((response, error) -> inFlight.release()));
+        }
+        List<Response> responses = futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        try {
+            I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, "Executed " + responses.size() + " Api calls in parallel in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms with status codes "
+                    + responses.stream().map(response -> String.valueOf(response.statusCode())).collect(Collectors.joining(",")));
+        } catch (Exception e) {
+            // to handle reporting exception - avoid unnecessary exceptions
+        }
+        return responses;
+    }
+
     /**
      *  This method can validate any sort of response.
      * @param expectedResponseInString pass response in String
@@ -163,11 +285,10 @@ public final class RestfulWebServices {
      *                                  "lastname":"pisal
      *                              }
      *                           }
-     *   if we don't want to validate "lastname" then add it in the Set<String>
+     *   if we don't want to validate "lastname" then add it in the Set<String>, or "/name/lastname" to ignore only that path
      */
     public void validateJsonResponse(String expectedResponseInString, String actualResponseInString, Set<String> dontCheckTheseKeys){
-        validateJsonResponse(I.amPerforming().fileHandling().forJsonAnd().getJsonObject(expectedResponseInString),
-                I.amPerforming().fileHandling().forJsonAnd().getJsonObject(actualResponseInString), dontCheckTheseKeys);
+        validateJsonResponse(new StringReader(expectedResponseInString), new StringReader(actualResponseInString), dontCheckTheseKeys);
     }
 
     /**
@@ -176,9 +297,39 @@ public final class RestfulWebServices {
      * @param actualResponseInString pass actual response in String
      */
     public void validateJsonResponse(String expectedResponseInString, String actualResponseInString){
-        validateJsonResponse(I.amPerforming().fileHandling().forJsonAnd().getJsonObject(expectedResponseInString),
-                I.amPerforming().fileHandling().forJsonAnd().getJsonObject(actualResponseInString),
-                new HashSet<>());
+        validateJsonResponse(new StringReader(expectedResponseInString), new StringReader(actualResponseInString), new HashSet<>());
+    }
+
+    /**
+     *  Validates large responses by streaming both documents, e.g. response.body().asInputStream() or a file reader.
+     *  Fails with the json pointers of the first differences (-DjsonMaxDifferences, default 10).
+     * @param expectedResponse reader over expected response
+     * @param actualResponse reader over actual response
+     * @param dontCheckTheseKeys key names to ignore at any depth, or json pointers such as /name/lastname ('*' matches any segment)
+     */
+    public void validateJsonResponse(Reader expectedResponse, Reader actualResponse, Set<String> dontCheckTheseKeys) {
+        List<String> differences;
+        try {
+            differences = new JsonStreamComparator(dontCheckTheseKeys, maxJsonDifferences).compare(expectedResponse, actualResponse);
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed while reading the response: " + e.getMessage());
+        }
+        Assert.assertTrue(differences.isEmpty(), "Failed while validating the response" + System.lineSeparator()
+                + String.join(System.lineSeparator(), differences));
+    }
+
+    /**
+     * Validates aggregated responses, e.g. from {@link #fanOut(List, int)}, against their expected responses in order.
+     * @param expectedResponsesInString expected responses in String, one per actual response
+     * @param actualResponses actual responses
+     * @param dontCheckTheseKeys add Set of keywords that should not be part of validation
+     */
+    public void validateJsonResponse(List<String> expectedResponsesInString, List<Response> actualResponses, Set<String> dontCheckTheseKeys) {
+        Assert.assertEquals(actualResponses.size(), expectedResponsesInString.size(), "Number of expected and actual responses do not match");
+        for (int i = 0; i < actualResponses.size(); i++) {
+            validateJsonResponse(new StringReader(expectedResponsesInString.get(i)),
+                    new InputStreamReader(actualResponses.get(i).asInputStream(), StandardCharsets.UTF_8), dontCheckTheseKeys);
+        }
     }
 
     /**
@@ -197,9 +348,13 @@ public final class RestfulWebServices {
                               JsonElement jsonElement, String stringBody, String endPoint, String key, String keyValue,
                               String authToken) {
 
+        // Async calls run off the scenario thread, so they only log to console
+        boolean writeToReport = !isAsyncCall.get();
+        long logCall = HttpLogPolicy.nextCall();
+
         // Print pre-request logs
         try {
-            if ((Boolean) TestingBlazeGlobal.getVariable("turnOffHealerLogs")) {
+            if (writeToReport && (Boolean) TestingBlazeGlobal.getVariable("turnOffHealerLogs")) {
                 I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, "Executing " + callType.name() + " Api");
                 I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, "End Point is " + endPoint);
             }
@@ -208,12 +363,7 @@ public final class RestfulWebServices {
         }
 
         // Make sure that GET calls do not use relaxed HTTPS validation
-        RequestSpecification request;
-        if (callType == CallTypes.GET) {
-            request = RestAssured.given();
-        } else {
-            request = RestAssured.given().relaxedHTTPSValidation();
-        }
+        RequestSpecification request = HttpConnectionPool.given(callType != CallTypes.GET);
 
         // Construct the request
         request.accept("application/json");
@@ -229,19 +379,20 @@ public final class RestfulWebServices {
             request.auth().oauth2(authToken);
         }
         if (jsonElement != null) {
-            if(!isJvmHookOn) {
+            String jsonBody = gson.toJson(jsonElement);
+            if(!isJvmHookOn && writeToReport) {
                 try {
-                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, "Json is " + jsonElement);
+                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, "Json is " + HttpLogPolicy.bound(logCall, jsonBody, true));
                 } catch (Exception e) {
                     // to handle reporting exception - avoid unnecessary exceptions
                 }
             }
-            request.body(gson.toJson(jsonElement));
+            request.body(jsonBody);
         }
         if (stringBody != null) {
-            if(!isJvmHookOn) {
+            if(!isJvmHookOn && writeToReport) {
                 try {
-                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, "Json is " + stringBody);
+                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, "Json is " + HttpLogPolicy.bound(logCall, stringBody, true));
                 } catch (Exception e) {
                     // to handle reporting exception - avoid unnecessary exceptions
                 }
@@ -251,6 +402,7 @@ public final class RestfulWebServices {
 
         // Make the actual call
         Response response = null;
+        long startTime = System.nanoTime();
         switch (callType) {
             case GET:
                 response = request.get(endPoint);
@@ -268,75 +420,62 @@ public final class RestfulWebServices {
                 response = request.delete(endPoint);
                 break;
         }
-        try {
-            reportsLogger(callType, response);
-        } catch (Exception e) {
-            // to handle reporting exception - avoid unnecessary exceptions
-            consoleLogger(callType, response);
+        HttpConnectionPool.metrics().record(callType.name(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        if (writeToReport) {
+            try {
+                reportsLogger(callType, response, logCall);
+            } catch (Exception e) {
+                // to handle reporting exception - avoid unnecessary exceptions
+                consoleLogger(callType, response, logCall);
+            }
+        } else {
+            consoleLogger(callType, response, logCall);
         }
         return response;
     }
 
-    private void reportsLogger(CallTypes callType, Response response) {
+    private CompletableFuture<Response> supplyAsync(Supplier<Response> call) {
+        return CompletableFuture.supplyAsync(ValueStore.bindScenario(() -> {
+            isAsyncCall.set(true);
+            try {
+                return call.get();
+            } finally {
+                isAsyncCall.remove();
+            }
+        }), asyncExecutor);
+    }
+
+    /**
+     * Use virtual threads with -DvirtualThreads=true when the running jdk offers them, else a daemon thread pool.
+     */
+    private static ExecutorService createAsyncExecutor() {
+        if ("true".equalsIgnoreCase(System.getProperty("virtualThreads"))) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (Exception e) {
+                // virtual threads are not available on this jdk
+            }
+        }
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "blaze-http-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void reportsLogger(CallTypes callType, Response response, long logCall) {
         I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, callType.name() + " Api call Response details:");
         I.amPerforming().updatingOfReportWith().write(LogLevel.EMPTY_LABEL, "1 - Response status: " + response.statusLine());
-        I.amPerforming().updatingOfReportWith().write(LogLevel.EMPTY_LABEL, "2 - Response time: " + response.timeIn(TimeUnit.SECONDS) + " sec");
+        I.amPerforming().updatingOfReportWith().write(LogLevel.EMPTY_LABEL, "2 - Response time: " + response.timeIn(TimeUnit.MILLISECONDS) + " ms");
         if (System.getProperty("postTestResults") == null)
-            I.amPerforming().updatingOfReportWith().write(LogLevel.EMPTY_LABEL, "3 - Response body: " + response.body().asString());
+            I.amPerforming().updatingOfReportWith().write(LogLevel.EMPTY_LABEL, "3 - Response body: " + HttpLogPolicy.bound(logCall, response.body().asString(), true));
     }
 
-    private void consoleLogger(CallTypes callType, Response response) {
+    private void consoleLogger(CallTypes callType, Response response, long logCall) {
         System.out.println(callType.name() + " Api call Response details:");
         System.out.println("1 - Response status: " + response.statusLine());
-        System.out.println("2 - Response time: " + response.timeIn(TimeUnit.SECONDS) + " sec");
+        System.out.println("2 - Response time: " + response.timeIn(TimeUnit.MILLISECONDS) + " ms");
         if (System.getProperty("postTestResults") == null)
-            System.out.println("3 - Response body: " + response.body().asString());
-    }
-
-    /**
-     *  This method can validate any sort of response.
-     * @param expectedResponse pass response in JsonObject(gson)
-     * @param actualResponse pass actual response in JsonObject(gson)
-     * @param dontCheckTheseKeys add Set of keywords that should not be part of validation...
-     *                           e.g
-     *                           {
-     *                              "name":{
-     *                                  "firstname":"jitu",
-     *                                  "lastname":"pisal
-     *                              }
-     *                           }
-     *   if we don't want to validate "lastname" then add it in the Set<String>
-     */
-    private void validateJsonResponse(JsonObject expectedResponse, JsonObject actualResponse, Set<String> dontCheckTheseKeys) {
-        for (String key : actualResponse.keySet()) {
-            if (actualResponse.get(key) instanceof JsonObject) {
-                JsonObject expectedChildResponseObject = expectedResponse.getAsJsonObject(key);
-                JsonObject childResponseObject = actualResponse.getAsJsonObject(key);
-                validateJsonResponse(expectedChildResponseObject, childResponseObject, dontCheckTheseKeys);
-            } else if (actualResponse.get(key) instanceof JsonArray) {
-                JsonArray childResponseArray = actualResponse.getAsJsonArray(key);
-                JsonArray expectedChildResponseArray = expectedResponse.getAsJsonArray(key);
-                for (int i = 0; i < childResponseArray.size(); i++) {
-                    if (childResponseArray.get(i) instanceof JsonObject) {
-                        validateJsonResponse((JsonObject) expectedChildResponseArray.get(i), (JsonObject) childResponseArray.get(i), dontCheckTheseKeys);
-                    } else {
-                        if (!dontCheckTheseKeys.contains(key)) {
-                            if (actualResponse.get(String.valueOf(childResponseArray.get(i))) == null) {
-                                Assert.assertEqualsNoOrder(new Gson().fromJson(actualResponse.get(key), String[].class),
-                                        new Gson().fromJson(expectedResponse.get(key), String[].class));
-                            } else {
-                                Assert.assertEquals(childResponseArray.get(i),
-                                        expectedChildResponseArray.get(i),
-                                        "Failed while validating the response" +
-                                                actualResponse.get(key.toString()));
-                            }
-                        }
-                    }
-                }
-            } else if (!dontCheckTheseKeys.contains(key)) {
-                Assert.assertEquals(actualResponse.get(key).toString(), expectedResponse.get(key).toString(),
-                        "Failed while validating the response" + actualResponse.get(key.toString()));
-            }
-        }
+            System.out.println("3 - Response body: " + HttpLogPolicy.bound(logCall, response.body().asString(), false));
     }
 }
@@ -26,20 +26,33 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 import com.testingblaze.controller.ReportingLogsPlugin;
+import com.testingblaze.exception.TestingBlazeRunTimeException;
 import com.testingblaze.http.RestfulWebServices;
 import com.testingblaze.register.EnvironmentFactory;
 import com.testingblaze.register.I;
+import io.restassured.response.Response;
 
 import java.io.IOException;
+import java.net.URLEncoder;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * The class is responsible for creating test run , adding all tests to runs, collect test results and post them to tfs, close runs
@@ -58,6 +71,10 @@ public class zFdcvgY0Kq {
     private volatile static Path tfsTestsMappingFile;
     private volatile static boolean setThreadBasedConfiguration = false;
     private static RestfulWebServices tfsApiCalls;
+    private static final int maxConcurrentCalls = System.getProperty("tfsMaxConcurrency") != null ? Integer.parseInt(System.getProperty("tfsMaxConcurrency")) : 8;
+    private static final int patchBatchSize = System.getProperty("tfsPatchBatchSize") != null ? Integer.parseInt(System.getProperty("tfsPatchBatchSize")) : 1000;
+    private static final int resultsPageSize = 1000;
+    private static final long bootstrapTimeoutInSeconds = System.getProperty("tfsBootstrapTimeout") != null ? Long.parseLong(System.getProperty("tfsBootstrapTimeout")) : 600;
 
     public zFdcvgY0Kq() {
         if (tfsApiCalls == null) tfsApiCalls = new RestfulWebServices();
@@ -79,57 +96,77 @@ public class zFdcvgY0Kq {
     /******************* Set up Pre-Result Posting Configurations  **********************************/
 
     /**
-     * Evaluates multi jvm execution and control run creation in parallel execution
+     * Evaluates multi jvm execution and control run creation in parallel execution.
+     * <p>
+     * The first jvm to lock target/tfs_tests_mapping.lock becomes the leader, creates the test runs and publishes
+     * tfs_tests_mapping.json atomically. Other jvms watch target for the published mapping and continue as soon as it
+     * appears, or take over if the leader dies before publishing. Waiting is capped by -DtfsBootstrapTimeout (seconds).
      *
      * @author: nauman.shahid
      */
     private static void createMultiJvmConfiguration() {
-        // The try block handles jvm that first approaches and is eligible to create the test runs
         setThreadBasedConfiguration = true;
-        Path path = Paths.get(EnvironmentFactory.getProjectPath() + "/target");
-        try {
-            if (Files.list(path).noneMatch(file -> file.startsWith("tfs_tests_mapping"))) {
-                Files.createFile(Paths.get(path + "/tfs_tests_mapping.json"));
-                tfsTestsMappingFile = Paths.get(EnvironmentFactory.getProjectPath() + "/target/tfs_tests_mapping.json");
-                fileChannel = FileChannel.open(tfsTestsMappingFile, StandardOpenOption.WRITE,
-                        StandardOpenOption.APPEND);
-                fileChannel.lock();
-                loadTfsConfiguration();
-                setUpInitialConfiguration();
-                JsonObject jsonData = getDataFromJson(tfsTestsMappingFile).getAsJsonObject();
-                runIds = new Gson().fromJson(jsonData.get("runIds").getAsJsonArray().getAsJsonArray(), new TypeToken<List<String>>() {
-                }.getType());
-                testIdsToTestResultIdsMappingToRuns = new Gson().fromJson(jsonData.get("resultMap"), new TypeToken<Map<String, Map<String, String>>>() {
-                }.getType());
-            }
-        } catch (Exception e) {
-            // This catch is executed in case test runs are already created by some other jvm
-            try {
-                Thread.sleep(60000);
-            } catch (InterruptedException exx) {
-
-            }
-            try {
-                tfsTestsMappingFile = Paths.get(EnvironmentFactory.getProjectPath() + "/target/tfs_tests_mapping.json");
-            } catch (Exception ex) {
-                try {
-                    Thread.sleep(30000);
-                    tfsTestsMappingFile = Paths.get(EnvironmentFactory.getProjectPath() + "/target/tfs_tests_mapping.json");
-                } catch (InterruptedException exx) {
-
+        Path targetDirectory = Paths.get(EnvironmentFactory.getProjectPath() + "/target");
+        tfsTestsMappingFile = targetDirectory.resolve("tfs_tests_mapping.json");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(bootstrapTimeoutInSeconds);
+        try (WatchService mappingWatcher = FileSystems.getDefault().newWatchService()) {
+            // register before checking for the file, so a publish in between is not missed
+            targetDirectory.register(mappingWatcher, StandardWatchEventKinds.ENTRY_CREATE);
+            fileChannel = FileChannel.open(targetDirectory.resolve("tfs_tests_mapping.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            while (Files.notExists(tfsTestsMappingFile)) {
+                FileLock leaderLock = fileChannel.tryLock();
+                if (leaderLock != null) {
+                    if (Files.exists(tfsTestsMappingFile)) break;
+                    try {
+                        loadTfsConfiguration();
+                        setUpInitialConfiguration();
+                    } catch (RuntimeException e) {
+                        // let another jvm take over the run creation
+                        leaderLock.release();
+                        throw e;
+                    }
+                    return;
+                }
+                long remainingTime = deadline - System.nanoTime();
+                if (remainingTime <= 0) {
+                    throw new TestingBlazeRunTimeException("Timed out waiting for another jvm to create the tfs test runs");
+                }
+                // wake up on any change in target, or periodically to check whether the leader is still alive
+                WatchKey changes = mappingWatcher.poll(Math.min(remainingTime, TimeUnit.SECONDS.toNanos(5)), TimeUnit.NANOSECONDS);
+                if (changes != null) {
+                    changes.pollEvents();
+                    changes.reset();
                 }
-
             }
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to set up tfs multi jvm configuration: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TestingBlazeRunTimeException("Interrupted while waiting for tfs test runs to be created");
+        }
 
-            loadTfsConfiguration();
-            JsonObject jsonData = getDataFromJson(tfsTestsMappingFile).getAsJsonObject();
-            runIds = new Gson().fromJson(jsonData.get("runIds").getAsJsonArray().getAsJsonArray(), new TypeToken<List<String>>() {
-            }.getType());
-            testIdsToTestResultIdsMappingToRuns = new Gson().fromJson(jsonData.get("resultMap"), new TypeToken<Map<String, Map<String, String>>>() {
-            }.getType());
+        // This part is executed in case test runs are already created by some other jvm
+        loadTfsConfiguration();
+        JsonObject jsonData = getDataFromJson(tfsTestsMappingFile).getAsJsonObject();
+        runIds = new Gson().fromJson(jsonData.get("runIds").getAsJsonArray().getAsJsonArray(), new TypeToken<List<String>>() {
+        }.getType());
+        testIdsToTestResultIdsMappingToRuns = new Gson().fromJson(jsonData.get("resultMap"), new TypeToken<Map<String, Map<String, String>>>() {
+        }.getType());
+    }
 
+    /**
+     * write the mapping to a temporary file and rename it, so other jvms never read a partially written mapping
+     *
+     * @param testsMapping json of run ids and result map
+     */
+    private static void publishTestsMapping(String testsMapping) {
+        try {
+            Path temporaryFile = Files.createTempFile(tfsTestsMappingFile.getParent(), "tfs_tests_mapping", ".tmp");
+            Files.writeString(temporaryFile, testsMapping);
+            Files.move(temporaryFile, tfsTestsMappingFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to publish tfs tests mapping: " + e.getMessage());
         }
-
     }
 
     /**
@@ -156,67 +193,81 @@ public class zFdcvgY0Kq {
     }
 
     /**
-     * maps suites to their corresponding plans
+     * maps suites to their corresponding plans. Suites of all plans are fetched in parallel
      *
-     * @calls: associateSuiteIdsToPlanId()
      * @author: nauman.shahid
      */
     private static void mapSuitesToPlans() {
-        // Collect all plans in project
-        for (var planId : planIds) {
-            associateSuiteIdsToPlanId(planId);
-        }
-    }
-
-    private static void associateSuiteIdsToPlanId(String planId) {
-        List<String> temporarySuiteBucket = new ArrayList<>();
-        // Collect all suites in each plan and push to
-        List<Map<String, Object>> getSuitesList = tfsApiCalls.getCall(tfsUrl + "/test/plans/" + planId + "/suites?" + apiVersion, "Authorization", authType + " " + pat).jsonPath().getList("value");
-        for (var suite : getSuitesList) {
-            temporarySuiteBucket.add(suite.get("id").toString());
+        // Collect all suites in each plan
+        List<Supplier<Response>> suiteCalls = planIds.stream()
+                .map(planId -> getCall(tfsUrl + "/test/plans/" + planId + "/suites?" + apiVersion))
+                .collect(Collectors.toList());
+        List<Response> suiteResponses = tfsApiCalls.fanOut(suiteCalls, maxConcurrentCalls);
+        for (int i = 0; i < planIds.size(); i++) {
+            List<String> temporarySuiteBucket = new ArrayList<>();
+            List<Map<String, Object>> getSuitesList = suiteResponses.get(i).jsonPath().getList("value");
+            for (var suite : getSuitesList) {
+                temporarySuiteBucket.add(suite.get("id").toString());
+            }
+            suitesToPlansMapping.put(planIds.get(i), temporarySuiteBucket);
         }
-        suitesToPlansMapping.put(planId, temporarySuiteBucket);
     }
 
     /**
-     * mapping of test points,cases to corresponding runs
+     * mapping of test points,cases to corresponding runs.
+     * Test points of all suites, run creation and result ids are each fetched in parallel
      *
      * @call: getTestRunCreationPayLoad()
      * @author: nauman.shahid
      */
     private static void mapTestPointsToTestRunAndTestCaseId() {
         JsonObject runIdsJsonArray_jsonTestIdsToTestResultIdsMappingToRuns_holder = new JsonObject();
-        for (String planId : suitesToPlansMapping.keySet()) {
-            List<String> testPointIds = new ArrayList<>();
+        List<String> plansToRun = new ArrayList<>(suitesToPlansMapping.keySet());
+
+        // Fetch all test points of every suite in every plan
+        List<String> planOfPointCall = new ArrayList<>();
+        List<Supplier<Response>> pointCalls = new ArrayList<>();
+        for (String planId : plansToRun) {
+            for (String suiteId : suitesToPlansMapping.get(planId)) {
+                planOfPointCall.add(planId);
+                pointCalls.add(getCall(tfsUrl + "/test/plans/" + planId + "/suites/" + suiteId + "/points?" + apiVersion));
+            }
+        }
+        List<Response> pointResponses = tfsApiCalls.fanOut(pointCalls, maxConcurrentCalls);
+        Map<String, JsonArray> testPointIdsContainers = new LinkedHashMap<>();
+        plansToRun.forEach(planId -> testPointIdsContainers.put(planId, new JsonArray()));
+        for (int i = 0; i < pointResponses.size(); i++) {
+            List<Map<String, Object>> testPoints = pointResponses.get(i).jsonPath().getList("value");
+            for (Map pointsInfo : testPoints) {
+                testPointIdsContainers.get(planOfPointCall.get(i)).add(pointsInfo.get("id").toString());
+            }
+        }
+
+        // create a run for all the test points of each plan
+        List<Supplier<Response>> runCalls = plansToRun.stream()
+                .map(planId -> (Supplier<Response>) () -> tfsApiCalls.postCall(getTestRunCreationPayLoad(planId, testPointIdsContainers.get(planId)), null, tfsUrl + "/test/runs?" + apiVersion, "Authorization", authType + " " + pat, null))
+                .collect(Collectors.toList());
+        List<String> createdRunIds = tfsApiCalls.fanOut(runCalls, maxConcurrentCalls).stream()
+                .map(response -> response.jsonPath().get("id").toString())
+                .collect(Collectors.toList());
+        runIds.addAll(createdRunIds);
+        if (setThreadBasedConfiguration) createdRunIds.forEach(jsonRunIds::add);
+
+        //get all test result ends against test cases
+        Map<String, List<Map<String, Object>>> testResultsByRun = handleTestResultIds(createdRunIds);
+        for (String runId : createdRunIds) {
             Map<String, String> tempTestIdsToTestResultIdsMapping = new LinkedHashMap<>();
             JsonObject tempJsonTestIdsToTestResultIdsMapping = new JsonObject();
-            for (String suiteId : suitesToPlansMapping.get(planId)) {
-                // Fetch all test points for in question plan at the moment
-                List<Map<String, Object>> testPoints = tfsApiCalls.getCall(tfsUrl + "/test/plans/" + planId + "/suites/" + suiteId + "/points?" + apiVersion, "Authorization", authType + " " + pat).jsonPath().getList("value");
-                for (Map pointsInfo : testPoints) {
-                    testPointIds.add(pointsInfo.get("id").toString());
-                }
+            for (Map testResultInfo : testResultsByRun.get(runId)) {
+                Map<String, Object> testCaseInfo = (Map<String, Object>) testResultInfo.get("testCase");
+                tempTestIdsToTestResultIdsMapping.put(testCaseInfo.get("id").toString(), testResultInfo.get("id").toString());
+                if (setThreadBasedConfiguration)
+                    tempJsonTestIdsToTestResultIdsMapping.addProperty(testCaseInfo.get("id").toString(), testResultInfo.get("id").toString());
             }
-            JsonArray testPointIdsContainer = new JsonArray();
-            testPointIds.stream().forEach(testPoints -> testPointIdsContainer.add(testPoints));
-
-            // create a run for all the test points
-            var runId = tfsApiCalls.postCall(getTestRunCreationPayLoad(planId, testPointIdsContainer), null, tfsUrl + "/test/runs?" + apiVersion, "Authorization", authType + " " + pat, null).jsonPath().get("id").toString();
-            runIds.add(runId);
-            if (setThreadBasedConfiguration) jsonRunIds.add(runId);
-            //get all test result ends against test cases
-            List<List<Map<String, Object>>> listTestResultsIds = handleTestResultIds(runId);
-
-            for (var testResultsIds : listTestResultsIds) {
-                for (Map testResultInfo : testResultsIds) {
-                    Map<String, Object> testCaseInfo = (Map<String, Object>) testResultInfo.get("testCase");
-                    tempTestIdsToTestResultIdsMapping.put(testCaseInfo.get("id").toString(), testResultInfo.get("id").toString());
-                    if (setThreadBasedConfiguration)
-                        tempJsonTestIdsToTestResultIdsMapping.addProperty(testCaseInfo.get("id").toString(), testResultInfo.get("id").toString());
-                    testIdsToTestResultIdsMappingToRuns.put(runId, tempTestIdsToTestResultIdsMapping);
-                    if (setThreadBasedConfiguration)
-                        jsonTestIdsToTestResultIdsMappingToRuns.add(runId, tempJsonTestIdsToTestResultIdsMapping);
-                }
+            if (!tempTestIdsToTestResultIdsMapping.isEmpty()) {
+                testIdsToTestResultIdsMappingToRuns.put(runId, tempTestIdsToTestResultIdsMapping);
+                if (setThreadBasedConfiguration)
+                    jsonTestIdsToTestResultIdsMappingToRuns.add(runId, tempJsonTestIdsToTestResultIdsMapping);
             }
         }
         if (setThreadBasedConfiguration)
@@ -224,49 +275,52 @@ public class zFdcvgY0Kq {
         if (setThreadBasedConfiguration)
             runIdsJsonArray_jsonTestIdsToTestResultIdsMappingToRuns_holder.add("resultMap", jsonTestIdsToTestResultIdsMappingToRuns);
         if (setThreadBasedConfiguration)
-            I.amPerforming().fileHandling().toWriteInFile(tfsTestsMappingFile.toString(), new Gson().toJson(runIdsJsonArray_jsonTestIdsToTestResultIdsMappingToRuns_holder));
+            publishTestsMapping(new Gson().toJson(runIdsJsonArray_jsonTestIdsToTestResultIdsMappingToRuns_holder));
     }
 
     /**
-     * handles fetching all test result ids form tfs. Special ahndling where record exceeds 1000
-     * @param runId
-     * @return
+     * handles fetching all test result ids form tfs. Pages of a run are read one after another following the
+     * continuation token (or $skip when tfs sends none), while all runs are paged in parallel.
+     * @param runIdsToFetch
+     * @return test results of each run
      * @author nauman.shahid
      */
-    private static List<List<Map<String, Object>>> handleTestResultIds(String runId) {
-        List<List<Map<String, Object>>> listTestResultsIds = new ArrayList<>();
-        Boolean fetchingResultIds = true;
-        int count = 0;
-        int limitRetryApi =0;
-        var initialTestResultPayload = tfsApiCalls.getCall(tfsUrl + "/test/Runs/" + runId + "/results?" + apiVersion, "Authorization", authType + " " + pat).jsonPath();
-
-        while (fetchingResultIds) {
-            limitRetryApi++;
-            String recordCount = initialTestResultPayload.get("count").toString();
-            List<Map<String, Object>> records = initialTestResultPayload.getList("value");
-
-            if (!recordCount.equalsIgnoreCase("1000") && count == 0) {
-                listTestResultsIds.add(initialTestResultPayload.getList("value"));
-                return listTestResultsIds;
-            } else if (recordCount.equalsIgnoreCase("1000")) {
-                if (records.get(0).get("id").toString().endsWith("000")) {
-                    listTestResultsIds.add(initialTestResultPayload.get("value"));
-                    count++;
-                    initialTestResultPayload = tfsApiCalls.getCall(tfsUrl + "/test/Runs/" + runId + "/results?$skip=" + (1000 * count) + "&" + apiVersion, "Authorization", authType + " " + pat).jsonPath();
-                } else if (!records.get(0).get("id").toString().endsWith("000")) {
-                    initialTestResultPayload = tfsApiCalls.getCall(tfsUrl + "/test/Runs/" + runId + "/results?$skip=" + (1000 * count) + "&" + apiVersion, "Authorization", authType + " " + pat).jsonPath();
+    private static Map<String, List<Map<String, Object>>> handleTestResultIds(List<String> runIdsToFetch) {
+        Map<String, List<Map<String, Object>>> testResultsByRun = new LinkedHashMap<>();
+        Map<String, String> nextPageByRun = new LinkedHashMap<>();
+        for (String runId : runIdsToFetch) {
+            testResultsByRun.put(runId, new ArrayList<>());
+            nextPageByRun.put(runId, getTestResultsPageUrl(runId, 0, null));
+        }
+
+        while (!nextPageByRun.isEmpty()) {
+            List<String> runsToPage = new ArrayList<>(nextPageByRun.keySet());
+            List<Supplier<Response>> pageCalls = runsToPage.stream()
+                    .map(runId -> getCall(nextPageByRun.get(runId)))
+                    .collect(Collectors.toList());
+            List<Response> pages = tfsApiCalls.fanOut(pageCalls, maxConcurrentCalls);
+            for (int i = 0; i < runsToPage.size(); i++) {
+                String runId = runsToPage.get(i);
+                List<Map<String, Object>> records = pages.get(i).jsonPath().getList("value");
+                if (records == null || records.isEmpty()) {
+                    nextPageByRun.remove(runId);
+                    continue;
                 }
-            } else if (!recordCount.equalsIgnoreCase("1000") && count > 0) {
-                if(records.get(0).get("id").toString().endsWith("000")) {
-                    listTestResultsIds.add(initialTestResultPayload.get("value"));
-                    fetchingResultIds = false;
+                testResultsByRun.get(runId).addAll(records);
+                String continuationToken = pages.get(i).getHeader("x-ms-continuationtoken");
+                if (continuationToken != null || records.size() == resultsPageSize) {
+                    nextPageByRun.put(runId, getTestResultsPageUrl(runId, testResultsByRun.get(runId).size(), continuationToken));
                 } else {
-                    initialTestResultPayload = tfsApiCalls.getCall(tfsUrl + "/test/Runs/" + runId + "/results?$skip=" + (1000 * count) + "&" + apiVersion, "Authorization", authType + " " + pat).jsonPath();
+                    nextPageByRun.remove(runId);
                 }
             }
-            if (limitRetryApi == 20) break;
         }
-        return listTestResultsIds;
+        return testResultsByRun;
+    }
+
+    private static String getTestResultsPageUrl(String runId, int skip, String continuationToken) {
+        return tfsUrl + "/test/Runs/" + runId + "/results?$top=" + resultsPageSize
+                + (continuationToken != null ? "&continuationToken=" + URLEncoder.encode(continuationToken, StandardCharsets.UTF_8) : "&$skip=" + skip) + "&" + apiVersion;
     }
 
     private static JsonObject getTestRunCreationPayLoad(String planId, JsonArray testPointId) {
@@ -298,21 +352,28 @@ public class zFdcvgY0Kq {
     }
 
     /**
-     * post all test results , update run completion
+     * post all test results , update run completion. Results are patched in batches of -DtfsPatchBatchSize,
+     * all batches of all runs in parallel
      *
      * @call getTestResultsData() , patchRunsCompletion()
      * @author nauman.shahid
      */
     private static void postAndPatchTestResult() {
         var runsToTestResultIdsAndResultsMapping = getTestResultsData();
+        List<Supplier<Response>> patchCalls = new ArrayList<>();
         for (var runId : runsToTestResultIdsAndResultsMapping.keySet()) {
             JsonArray testRunResultPayLoadHolder = new JsonArray();
             var testResultIdsAndResultsMapping = runsToTestResultIdsAndResultsMapping.get(runId);
             for (var entrySet : testResultIdsAndResultsMapping.entrySet()) {
                 testRunResultPayLoadHolder.add(getTestCaseResultPayload(entrySet.getKey(), entrySet.getValue()));
+                if (testRunResultPayLoadHolder.size() == patchBatchSize) {
+                    patchCalls.add(patchTestResult(testRunResultPayLoadHolder, runId));
+                    testRunResultPayLoadHolder = new JsonArray();
+                }
             }
-            if (testRunResultPayLoadHolder.size() > 0) patchTestResult(testRunResultPayLoadHolder, runId);
+            if (testRunResultPayLoadHolder.size() > 0) patchCalls.add(patchTestResult(testRunResultPayLoadHolder, runId));
         }
+        if (!patchCalls.isEmpty()) tfsApiCalls.fanOut(patchCalls, maxConcurrentCalls);
         patchRunsCompletion();
     }
 
@@ -322,19 +383,12 @@ public class zFdcvgY0Kq {
      * @author nauman.shahid
      */
     private static void patchRunsCompletion() {
-        for (String runId : runIds) {
-            JsonObject completeState = new JsonObject();
-            completeState.addProperty("state", "Completed");
-            tfsApiCalls.patchCall(completeState, null, tfsUrl + "/test/runs/" + runId + "?" + apiVersion, "Authorization", authType + " " + pat, null);
-        }
-
-        if (System.getProperty("threads") == null || ("0".equals(System.getProperty("threads")) || ("1".equals(System.getProperty("threads"))))){
-            for (String runId : runIds) {
-                JsonObject completeState = new JsonObject();
-                completeState.addProperty("state", "Completed");
-                tfsApiCalls.patchCall(completeState, null, tfsUrl + "/test/runs/" + runId + "?" + apiVersion, "Authorization", authType + " " + pat, null);
-            }
-        }
+        JsonObject completeState = new JsonObject();
+        completeState.addProperty("state", "Completed");
+        List<Supplier<Response>> completionCalls = runIds.stream()
+                .map(runId -> (Supplier<Response>) () -> tfsApiCalls.patchCall(completeState, null, tfsUrl + "/test/runs/" + runId + "?" + apiVersion, "Authorization", authType + " " + pat, null))
+                .collect(Collectors.toList());
+        tfsApiCalls.fanOut(completionCalls, maxConcurrentCalls);
     }
 
     /**
@@ -364,10 +418,15 @@ public class zFdcvgY0Kq {
      *
      * @param testCaseResultPayLoadHolder
      * @param testRun
+     * @return the patch call, to be executed with other batches
      * @author nauman.shahid
      */
-    private static void patchTestResult(JsonArray testCaseResultPayLoadHolder, String testRun) {
-        tfsApiCalls.patchCall(testCaseResultPayLoadHolder, null, tfsUrl + "/test/runs/" + testRun + "/results?" + apiVersion, "Authorization", authType + " " + pat, null);
+    private static Supplier<Response> patchTestResult(JsonArray testCaseResultPayLoadHolder, String testRun) {
+        return () -> tfsApiCalls.patchCall(testCaseResultPayLoadHolder, null, tfsUrl + "/test/runs/" + testRun + "/results?" + apiVersion, "Authorization", authType + " " + pat, null);
+    }
+
+    private static Supplier<Response> getCall(String endPoint) {
+        return () -> tfsApiCalls.getCall(endPoint, "Authorization", authType + " " + pat);
     }
 
     private static JsonObject getTestCaseResultPayload(String resultId, String result) {
@@ -19,17 +19,15 @@
  */
 package com.testingblaze.misclib;
 
-import com.testingblaze.actionsfactory.type.jucQcQgaaP;
 import com.testingblaze.objects.Elements;
 import com.testingblaze.objects.TwoColumnSorting;
 import com.testingblaze.register.I;
 import com.testingblaze.report.LogLevel;
 import org.openqa.selenium.WebElement;
 import org.testng.Assert;
-import ru.yandex.qatools.ashot.comparison.ImageDiff;
-import ru.yandex.qatools.ashot.comparison.ImageDiffer;
 
 import javax.imageio.ImageIO;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -119,6 +117,10 @@ public final class Compare {
      * @author nauman.shahid
      */
     public static final class Image {
+        /*
+         * images whose dHash distance is above this are different without a pixel diff, -1 (default) always diffs
+         */
+        private static final int hashPreFilterDistance = System.getProperty("imageHashPreFilter") != null ? Integer.parseInt(System.getProperty("imageHashPreFilter")) : -1;
 
         /**
          * compare two Specific element whose screen
@@ -139,10 +141,20 @@ public final class Compare {
          * @throws IOException
          */
         public boolean isElementImage(WebElement element, String imageName, Integer tolerance) throws IOException {
-            var getImageFromResources = ImageIO.read(new jucQcQgaaP().getResources(imageName));
-            var getSnapshot=I.amPerforming().snapShotTo().getlementScreenShot(element);
-            var convertedBufferedImage = new jucQcQgaaP().convertImageFileToBufferedImage(getSnapshot);
-            return compareTwoImages(getImageFromResources, convertedBufferedImage, tolerance);
+            return isElementImage(element, imageName, tolerance, Collections.emptyList());
+        }
+
+        /**
+         * compare two Specific element whose screen, skipping regions that change between runs
+         *
+         * @param imageName      with extension, a copy under a folder named like
+         *                       {@link VisualBaselineStore#currentVariant()} takes precedence
+         * @param ignoredRegions regions of the baseline image not to compare
+         * @return
+         * @throws IOException
+         */
+        public boolean isElementImage(WebElement element, String imageName, Integer tolerance, List<Rectangle> ignoredRegions) throws IOException {
+            return compareWithBaseline(VisualBaselineStore.get(imageName), I.amPerforming().snapShotTo().getElementScreenshotImage(element), tolerance, ignoredRegions);
         }
 
         /**
@@ -164,7 +176,20 @@ public final class Compare {
          * @throws IOException
          */
         public boolean isFullImage(String imageName, int tolerance) throws IOException {
-            return compareTwoImages(ImageIO.read(new jucQcQgaaP().getResources(imageName)), I.amPerforming().addOnsTo().convertImageFileToBufferedImage(I.amPerforming().snapShotTo().getScreenshot()), tolerance);
+            return isFullImage(imageName, tolerance, Collections.emptyList());
+        }
+
+        /**
+         * compare two full screen shots, skipping regions that change between runs
+         *
+         * @param imageName      baseline in the resources, a copy under a folder named like
+         *                       {@link VisualBaselineStore#currentVariant()} takes precedence
+         * @param ignoredRegions regions of the baseline image not to compare
+         * @return
+         * @throws IOException
+         */
+        public boolean isFullImage(String imageName, int tolerance, List<Rectangle> ignoredRegions) throws IOException {
+            return compareWithBaseline(VisualBaselineStore.get(imageName), I.amPerforming().snapShotTo().getScreenshotImage(), tolerance, ignoredRegions);
         }
 
         /**
@@ -188,22 +213,33 @@ public final class Compare {
          * @throws IOException
          */
         public boolean isImagesSame(String image1WithFullFilePath, String image2WithFullFilePath, int tolerance) throws IOException {
-            return compareTwoImages(ImageIO.read(new File(image1WithFullFilePath)), ImageIO.read(new File(image2WithFullFilePath)), tolerance);
+            return compareTwoImages(ImageIO.read(new File(image1WithFullFilePath)), ImageIO.read(new File(image2WithFullFilePath)), tolerance, Collections.emptyList());
+        }
+
+        /**
+         * decide by the precomputed hashes of the baseline when they allow it, else diff against the baseline image
+         */
+        private boolean compareWithBaseline(VisualBaselineStore.Baseline baseline, BufferedImage actual, int tolerance, List<Rectangle> ignoredRegions) {
+            Assert.assertTrue(tolerance >= 0 && tolerance <= 100, "The tolerance for comparing images must be a percentage between 0 and 100.");
+            var verdict = baseline.match(actual);
+            if (verdict == VisualBaselineStore.Verdict.SAME || (verdict == VisualBaselineStore.Verdict.DIFFERENT && ignoredRegions.isEmpty())) {
+                return verdict == VisualBaselineStore.Verdict.SAME;
+            }
+            return compareTwoImages(baseline.getImage(), actual, tolerance, ignoredRegions);
         }
 
         /**
-         * @param image1    The first image to compare
-         * @param image2    The second image to compare
-         * @param tolerance How many points may be different between the two images before the
-         *                  images are considered "different", as a percentage.
-         *                  (i.e. 20 means they can differ in at most 20% of their points)
+         * @param image1         The first image to compare
+         * @param image2         The second image to compare
+         * @param tolerance      How many points may be different between the two images before the
+         *                       images are considered "different", as a percentage.
+         *                       (i.e. 20 means they can differ in at most 20% of their points)
+         * @param ignoredRegions Regions of the first image that are not compared
          * @return
          */
-        private boolean compareTwoImages(BufferedImage image1, BufferedImage image2, int tolerance) {
+        private boolean compareTwoImages(BufferedImage image1, BufferedImage image2, int tolerance, List<Rectangle> ignoredRegions) {
             Assert.assertTrue(tolerance >= 0 && tolerance <= 100, "The tolerance for comparing images must be a percentage between 0 and 100.");
-            ImageDiff diff = new ImageDiffer().makeDiff(image1, image2)
-                    .withDiffSizeTrigger((int) ((image1.getHeight() * (image1.getWidth()) * (tolerance / 100.00))));
-            return !diff.hasDiff();
+            return new ImageComparator(tolerance, ImageComparator.DEFAULT_COLOR_DISTORTION, ignoredRegions, hashPreFilterDistance).isSame(image1, image2);
         }
 
     }
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Text extraction for pdf and docx files.
+ * <p>
+ * Pdf files are opened in partial mode, so only the pages asked for are read. Page ranges are extracted in parallel
+ * on a small pool (-DdocumentExtractionThreads, default up to 4), each worker with its own reader. Extracted text is
+ * cached by the sha-256 of the file content, so the same download is never extracted twice.
+ */
+public final class DocumentText {
+    private static final int threads = System.getProperty("documentExtractionThreads") != null ? Integer.parseInt(System.getProperty("documentExtractionThreads")) : Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService extractionPool = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+        Thread thread = new Thread(runnable, "blaze-document-text");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<String, Map<Integer, String>> pdfPageCache = new ConcurrentHashMap<>();
+    private static final Map<String, String> docxTextCache = new ConcurrentHashMap<>();
+    private static final Map<String, String> fileHashes = new ConcurrentHashMap<>();
+    private static final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+    private DocumentText() {
+    }
+
+    /**
+     * @param file pdf file
+     * @return number of pages
+     */
+    public static int pdfPageCount(Path file) {
+        PdfReader reader = openPdf(file);
+        try {
+            return reader.getNumberOfPages();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @param file       pdf file
+     * @param pageNumber page number starting at 1
+     * @return text of the page
+     */
+    public static String pdfPage(Path file, int pageNumber) {
+        return pdfPages(file, pageNumber, pageNumber).get(0);
+    }
+
+    /**
+     * Extract a range of pages, in parallel when more than one page is not cached yet.
+     *
+     * @param file     pdf file
+     * @param fromPage first page, starting at 1
+     * @param toPage   last page (inclusive), 0 for the last page of the document
+     * @return text of each page in the range
+     */
+    public static List<String> pdfPages(Path file, int fromPage, int toPage) {
+        Map<Integer, String> pages = pdfPageCache.computeIfAbsent(hash(file), hash -> new ConcurrentHashMap<>());
+        int lastPage = toPage > 0 ? toPage : pdfPageCount(file);
+        int[] missing = IntStream.rangeClosed(fromPage, lastPage).filter(page -> !pages.containsKey(page)).toArray();
+        AtomicInteger next = new AtomicInteger();
+        runWorkers(missing.length, () -> {
+            PdfReader reader = openPdf(file);
+            try {
+                for (int index = next.getAndIncrement(); index < missing.length; index = next.getAndIncrement()) {
+                    pages.put(missing[index], PdfTextExtractor.getTextFromPage(reader, missing[index]));
+                }
+            } finally {
+                reader.close();
+            }
+            return null;
+        });
+        List<String> text = new ArrayList<>(lastPage - fromPage + 1);
+        for (int page = fromPage; page <= lastPage; page++) {
+            text.add(pages.get(page));
+        }
+        return text;
+    }
+
+    /**
+     * Find the first page containing a text, without extracting the pages after it.
+     *
+     * @param file     pdf file
+     * @param text     text to search for, within a single page
+     * @param fromPage first page to search, starting at 1
+     * @param toPage   last page to search (inclusive), 0 for the last page of the document
+     * @return number of the first page containing the text, -1 if there is none
+     */
+    public static int findPdfPageContaining(Path file, String text, int fromPage, int toPage) {
+        Map<Integer, String> pages = pdfPageCache.computeIfAbsent(hash(file), hash -> new ConcurrentHashMap<>());
+        int lastPage = toPage > 0 ? toPage : pdfPageCount(file);
+        AtomicInteger next = new AtomicInteger(fromPage);
+        AtomicInteger found = new AtomicInteger(Integer.MAX_VALUE);
+        runWorkers(lastPage - fromPage + 1, () -> {
+            PdfReader reader = null;
+            try {
+                // pages are taken in order, so once a match is found only earlier pages still need a look
+                for (int page = next.getAndIncrement(); page <= lastPage && page < found.get(); page = next.getAndIncrement()) {
+                    String pageText = pages.get(page);
+                    if (pageText == null) {
+                        if (reader == null) {
+                            reader = openPdf(file);
+                        }
+                        pageText = PdfTextExtractor.getTextFromPage(reader, page);
+                        pages.put(page, pageText);
+                    }
+                    if (pageText.contains(text)) {
+                        found.accumulateAndGet(page, Math::min);
+                    }
+                }
+            } finally {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+            return null;
+        });
+        return found.get() == Integer.MAX_VALUE ? -1 : found.get();
+    }
+
+    /**
+     * @param file docx file
+     * @return text of the document as extracted by XWPFWordExtractor
+     */
+    public static String docxText(Path file) {
+        return docxTextCache.computeIfAbsent(hash(file), hash -> {
+            try (InputStream is = Files.newInputStream(file);
+                 XWPFWordExtractor extractor = new XWPFWordExtractor(new XWPFDocument(is))) {
+                return extractor.getText();
+            } catch (IOException e) {
+                throw new TestingBlazeRunTimeException("Failed to read " + file + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stream the paragraphs of a docx file until one contains the text. Uses the cached text when the file was
+     * extracted before.
+     *
+     * @param file docx file
+     * @param text text to search for, within a single paragraph
+     * @return true if a paragraph contains the text
+     */
+    public static boolean docxContainsText(Path file, String text) {
+        String cached = docxTextCache.get(hash(file));
+        if (cached != null) {
+            return cached.contains(text);
+        }
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            PackagePart document = pkg.getPart(PackagingURIHelper.createPartName("/word/document.xml"));
+            try (InputStream is = document.getInputStream()) {
+                XMLStreamReader xml = xmlInputFactory.createXMLStreamReader(is);
+                StringBuilder paragraph = new StringBuilder();
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT && "t".equals(xml.getLocalName())) {
+                        paragraph.append(xml.getElementText());
+                    } else if (event == XMLStreamConstants.START_ELEMENT && "tab".equals(xml.getLocalName())) {
+                        paragraph.append('\t');
+                    } else if (event == XMLStreamConstants.END_ELEMENT && "p".equals(xml.getLocalName())) {
+                        if (paragraph.indexOf(text) >= 0) {
+                            return true;
+                        }
+                        paragraph.setLength(0);
+                    }
+                }
+                return paragraph.indexOf(text) >= 0;
+            }
+        } catch (Exception e) {
+            throw new TestingBlazeRunTimeException("Failed to read " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forget all extracted text.
+     */
+    public static void clearCache() {
+        pdfPageCache.clear();
+        docxTextCache.clear();
+        fileHashes.clear();
+    }
+
+    private static PdfReader openPdf(Path file) {
+        try {
+            return new PdfReader(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createBestSource(file.toString())), null);
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to open pdf " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Run up to the pool size copies of a worker, or the worker alone on this thread when there is at most one task.
+     */
+    private static void runWorkers(int tasks, Callable<Void> worker) {
+        if (tasks <= 0) {
+            return;
+        }
+        try {
+            if (tasks == 1 || threads <= 1) {
+                worker.call();
+                return;
+            }
+            for (Future<Void> result : extractionPool.invokeAll(Collections.nCopies(Math.min(tasks, threads), worker))) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            throw new TestingBlazeRunTimeException("Failed to extract text: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TestingBlazeRunTimeException("Interrupted while extracting text");
+        } catch (TestingBlazeRunTimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TestingBlazeRunTimeException("Failed to extract text: " + e.getMessage());
+        }
+    }
+
+    /**
+     * sha-256 of the file content, remembered by path, size and last modified time
+     */
+    private static String hash(Path file) {
+        try {
+            String fileKey = file.toAbsolutePath() + "!" + Files.size(file) + "!" + Files.getLastModifiedTime(file).toMillis();
+            return fileHashes.computeIfAbsent(fileKey, key -> {
+                try (DigestInputStream is = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+                    byte[] buffer = new byte[64 * 1024];
+                    while (is.read(buffer) != -1) {
+                        // digest is updated while reading
+                    }
+                    StringBuilder hex = new StringBuilder();
+                    for (byte b : is.getMessageDigest().digest()) {
+                        hex.append(String.format("%02x", b));
+                    }
+                    return hex.toString();
+                } catch (IOException | NoSuchAlgorithmException e) {
+                    throw new TestingBlazeRunTimeException("Failed to hash " + file + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to read " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
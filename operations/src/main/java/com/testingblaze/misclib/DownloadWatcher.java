@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Waits for browser downloads with a WatchService instead of polling directory listings.
+ * <p>
+ * Only files created or changed since the download was expected count: the directory state is recorded when the
+ * scenario starts and by {@link #expectDownload()}, so files of earlier scenarios or runs are never returned. Waits do
+ * not move that state forward, so reading the same download again, e.g. another page or sheet, finds it at once; the
+ * newest completed download is returned. A download is complete once such a file matching the pattern exists and no in progress
+ * download (.crdownload, .part) of a matching file is left. Chrome and Edge rename .crdownload files when done, Firefox
+ * moves .part files over an empty placeholder.
+ * <br>
+ * Every scenario gets its own directory under target/downloads, so parallel scenarios and forks never pick up each
+ * other's files. -DisolatedDownloads=false downloads to target, as before.
+ */
+public final class DownloadWatcher {
+    public static final int DEFAULT_TIMEOUT_IN_SECONDS = System.getProperty("downloadTimeout") != null ? Integer.parseInt(System.getProperty("downloadTimeout")) : 60;
+    private static final boolean isolated = !"false".equalsIgnoreCase(System.getProperty("isolatedDownloads"));
+    private static final Path defaultDirectory = Paths.get(System.getProperty("user.dir"), "target");
+    private static final String processId = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+    private static final AtomicInteger scenarioCount = new AtomicInteger();
+    private static final ThreadLocal<Path> scenarioDirectory = new ThreadLocal<>();
+    private static final ThreadLocal<Map<Path, String>> knownFiles = new ThreadLocal<>();
+
+    private DownloadWatcher() {
+    }
+
+    /**
+     * Create the download directory of a new scenario on the current thread, when downloads are isolated, and record
+     * the files already in it. Call before the browser is started, as browsers read the directory from their capabilities.
+     */
+    public static void startScenario() {
+        if (isolated) {
+            Path directory = defaultDirectory.resolve("downloads").resolve(processId + "-" + scenarioCount.incrementAndGet());
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new TestingBlazeRunTimeException("Failed to create download directory " + directory + ": " + e.getMessage());
+            }
+            scenarioDirectory.set(directory);
+        }
+        expectDownload();
+    }
+
+    /**
+     * Record the files in the download directory of the running scenario, the next wait only accepts files created or
+     * changed after this. Call before the action that starts the download, when the directory may already hold a file
+     * matching the pattern.
+     */
+    public static void expectDownload() {
+        knownFiles.set(listFiles(getDownloadDirectory()));
+    }
+
+    /**
+     * @return download directory of the running scenario
+     */
+    public static Path getDownloadDirectory() {
+        Path directory = scenarioDirectory.get();
+        return directory != null ? directory : defaultDirectory;
+    }
+
+    /**
+     * Wait for a download in the directory of the running scenario.
+     *
+     * @param pattern          file name glob, e.g. "statement*.pdf", or "regex:" followed by a regular expression
+     * @param timeoutInSeconds
+     * @return the downloaded file
+     */
+    public static Path awaitDownload(String pattern, int timeoutInSeconds) {
+        return awaitDownload(getDownloadDirectory(), pattern, timeoutInSeconds);
+    }
+
+    /**
+     * Wait for a download in a directory. Files are new against the state recorded by {@link #expectDownload()}, for
+     * the directory of the running scenario, else against the state when the wait starts.
+     *
+     * @param directory        directory the browser downloads to
+     * @param pattern          file name glob, e.g. "statement*.pdf", or "regex:" followed by a regular expression
+     * @param timeoutInSeconds
+     * @return the downloaded file
+     */
+    public static Path awaitDownload(Path directory, String pattern, int timeoutInSeconds) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher(pattern.startsWith("regex:") || pattern.startsWith("glob:") ? pattern : "glob:" + pattern);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutInSeconds);
+        boolean ownDirectory = directory.equals(getDownloadDirectory()) && knownFiles.get() != null;
+        Map<Path, String> known = ownDirectory ? knownFiles.get() : listFiles(directory);
+        try (WatchService watchService = directory.getFileSystem().newWatchService()) {
+            Files.createDirectories(directory);
+            // register before the first look, so a download finishing in between is not missed
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            Path download = findCompletedDownload(directory, matcher, known);
+            while (download == null) {
+                long remaining = deadline - System.nanoTime();
+                WatchKey key = remaining > 0 ? watchService.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (key == null) {
+                    throw new TestingBlazeRunTimeException("No download matching '" + pattern + "' completed in " + directory + " within " + timeoutInSeconds + " seconds");
+                }
+                key.pollEvents();
+                key.reset();
+                download = findCompletedDownload(directory, matcher, known);
+            }
+            return download;
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to watch " + directory + " for downloads: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TestingBlazeRunTimeException("Interrupted while waiting for a download in " + directory);
+        }
+    }
+
+    /**
+     * @return the newest non empty file matching the pattern that is not known, or null while none exists or a matching
+     * download is in progress
+     */
+    private static Path findCompletedDownload(Path directory, PathMatcher matcher, Map<Path, String> known) throws IOException {
+        Path newest = null;
+        long newestTime = Long.MIN_VALUE;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // renamed or deleted by the browser meanwhile
+                    continue;
+                }
+                if (!attributes.isRegularFile() || state(attributes).equals(known.get(file))) {
+                    continue;
+                }
+                String name = file.getFileName().toString();
+                if (name.endsWith(".crdownload") || name.endsWith(".part")) {
+                    if (matcher.matches(file.getFileSystem().getPath(name.substring(0, name.lastIndexOf('.'))))) {
+                        return null;
+                    }
+                } else if (matcher.matches(file.getFileName()) && attributes.size() > 0) {
+                    long time = attributes.lastModifiedTime().toMillis();
+                    if (time > newestTime) {
+                        newest = file;
+                        newestTime = time;
+                    }
+                }
+            }
+        }
+        return newest;
+    }
+
+    private static Map<Path, String> listFiles(Path directory) {
+        Map<Path, String> files = new HashMap<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path file : stream) {
+                    try {
+                        files.put(file, state(Files.readAttributes(file, BasicFileAttributes.class)));
+                    } catch (IOException e) {
+                        // deleted meanwhile
+                    }
+                }
+            } catch (IOException e) {
+                throw new TestingBlazeRunTimeException("Failed to list downloads in " + directory + ": " + e.getMessage());
+            }
+        }
+        return files;
+    }
+
+    private static String state(BasicFileAttributes attributes) {
+        return attributes.size() + "@" + attributes.lastModifiedTime().toMillis();
+    }
+}
@@ -7,22 +7,29 @@ import javax.mail.Flags;
 import javax.mail.Folder;
 import javax.mail.Message;
 import javax.mail.MessagingException;
-import javax.mail.Session;
-import javax.mail.Store;
+import javax.mail.search.AndTerm;
+import javax.mail.search.FlagTerm;
+import javax.mail.search.SearchTerm;
 import javax.mail.search.SubjectTerm;
-import java.io.BufferedReader;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.time.Duration;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * @author jitendra.pisal
  */
 public final class Emails {
-    private Folder folder;
+    private static final Pattern LINE_BREAK = Pattern.compile("\\r\\n|\\r|\\n");
+    private MailboxSession mailbox;
+    private Supplier<MailboxSession> mailboxOpener;
+    private MailboxDispatcher dispatcher;
     private Properties properties = new Properties();
 
     public enum EmailFolder {
@@ -74,7 +81,9 @@ public final class Emails {
 
 
     /**
-     * Connects to email server with credentials provided to read from a given folder of the email application
+     * Connects to email server with credentials provided to read from a given folder of the email application. The
+     * connection is opened on the first read of the folder, routed messages alone do not need it, and is kept open and
+     * shared, see {@link MailboxSession}
      *
      * @param username    Email username (e.g. jitendra.pisal@gmail.com)
      * @param password    Email password
@@ -85,21 +94,23 @@ public final class Emails {
      */
     public EmailMethods accessEmail(String username, String password, HostName server, MailClient mailClient, EmailFolder emailFolder) {
         I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, "Accessing mail " + mailClient);
-        try {
-            Properties props = getMailClientProp(mailClient);
-            Session session = Session.getInstance(props);
-            Store store = session.getStore("imaps");
-            store.connect(server.getText(), username, password);
-            folder = store.getFolder(emailFolder.getText());
-            folder.open(Folder.READ_WRITE);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        Properties props = getMailClientProp(mailClient);
+        mailbox = null;
+        mailboxOpener = () -> MailboxSession.open(props, server.getText(), username, password, emailFolder.getText());
+        dispatcher = MailboxDispatcher.forMailbox(props, server.getText(), username, password, emailFolder.getText());
 
         return new EmailMethods();
     }
 
 
+    private MailboxSession mailbox() {
+        if (mailbox == null) {
+            mailbox = mailboxOpener.get();
+        }
+        return mailbox;
+    }
+
+
     /**
      * @param mailClient (e.g GMAIL, OUTLOOK)
      * @return
@@ -161,12 +172,12 @@ public final class Emails {
 
 
         public int getNumberOfMessages() throws MessagingException {
-            return folder.getMessageCount();
+            return mailbox().getFolder().getMessageCount();
         }
 
 
         public int getNumberOfUnreadMessages() throws MessagingException {
-            return folder.getUnreadMessageCount();
+            return mailbox().getFolder().getUnreadMessageCount();
         }
 
 
@@ -176,7 +187,7 @@ public final class Emails {
          * @author jitendra.pisal
          */
         public Message getMessageByIndex(int index) throws MessagingException {
-            return folder.getMessage(index);
+            return mailbox().getFolder().getMessage(index);
         }
 
 
@@ -200,7 +211,7 @@ public final class Emails {
          * @author jitendra.pisal
          */
         public Message[] getAllMessages() throws MessagingException {
-            return folder.getMessages();
+            return mailbox().getFolder().getMessages();
         }
 
 
@@ -210,12 +221,14 @@ public final class Emails {
          */
         public Message[] getMessages(int maxToGet) throws MessagingException {
             Map<String, Integer> indices = getStartAndEndIndices(maxToGet);
-            return folder.getMessages(indices.get("startIndex"), indices.get("endIndex"));
+            Message[] messages = mailbox().getFolder().getMessages(indices.get("startIndex"), indices.get("endIndex"));
+            mailbox().fetch(messages);
+            return messages;
         }
 
 
         /**
-         * Searches for messages with a specific subject
+         * Searches for messages with a specific subject, the search runs on the server
          *
          * @param subject     Subject to search messages for
          * @param unreadOnly  Indicate whether to only return matched messages that are unread
@@ -223,21 +236,11 @@ public final class Emails {
          */
         public Message[] getMessagesBySubject(String subject, boolean unreadOnly, int maxToSearch) throws Exception {
             Map<String, Integer> indices = getStartAndEndIndices(maxToSearch);
+            Folder folder = mailbox().getFolder();
+            SearchTerm term = unreadOnly ? new AndTerm(new SubjectTerm(subject), new FlagTerm(new Flags(Flags.Flag.SEEN), false)) : new SubjectTerm(subject);
 
-            Message messages[] = folder.search(
-                    new SubjectTerm(subject),
-                    folder.getMessages(indices.get("startIndex"), indices.get("endIndex")));
-
-            if (unreadOnly) {
-                List<Message> unreadMessages = new ArrayList<Message>();
-                for (Message message : messages) {
-                    if (isMessageUnread(message)) {
-                        unreadMessages.add(message);
-                    }
-                }
-                messages = unreadMessages.toArray(new Message[]{});
-            }
-
+            Message messages[] = folder.search(term, folder.getMessages(indices.get("startIndex"), indices.get("endIndex")));
+            mailbox().fetch(messages);
             return messages;
         }
 
@@ -248,16 +251,82 @@ public final class Emails {
          * @author jitendra.pisal
          */
         public String getMessageContent(Message message) throws Exception {
-            StringBuilder builder = new StringBuilder();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(message.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                builder.append(line);
+            StringWriter content = new StringWriter();
+            try (Reader reader = new InputStreamReader(message.getInputStream())) {
+                reader.transferTo(content);
             }
-            return builder.toString();
+            return LINE_BREAK.matcher(content.toString()).replaceAll("");
         }
 
 
+        /**
+         * Marks the messages already in the folder, call before the action that sends the mail, e.g. clicking
+         * "send OTP", and pass the mark to {@link #awaitMessage(Predicate, long, Duration)}
+         *
+         * @return the mark
+         * @throws MessagingException
+         */
+        public long expectMessage() throws MessagingException {
+            mailbox().sync();
+            return mailbox().getLastUid();
+        }
+
+
+        /**
+         * Waits for a message, e.g. an OTP or a notification, that arrived after {@link #expectMessage()}
+         *
+         * @param predicate e.g. message -> message.getSubject().contains("OTP"), envelope and flags are prefetched
+         * @param mark      returned by expectMessage before the mail was sent
+         * @param timeout
+         * @return the latest matching message
+         * @throws MessagingException
+         */
+        public Message awaitMessage(Predicate<Message> predicate, long mark, Duration timeout) throws MessagingException {
+            return mailbox().awaitMessage(predicate, mark, timeout);
+        }
+
+
+        /**
+         * Waits for a message, e.g. an OTP or a notification, that arrives after this call. A mail that arrived between
+         * the sending action and this call is missed: prefer {@link #expectMessage()} with
+         * {@link #awaitMessage(Predicate, long, Duration)}, or {@link #awaitAnyMessage(Predicate, Duration)}, which
+         * also matches messages already in the folder.
+         *
+         * @param predicate e.g. message -> message.getSubject().contains("OTP"), envelope and flags are prefetched
+         * @param timeout
+         * @return the latest matching message
+         * @throws MessagingException
+         */
+        public Message awaitMessage(Predicate<Message> predicate, Duration timeout) throws MessagingException {
+            return awaitMessage(predicate, expectMessage(), timeout);
+        }
+
+
+        /**
+         * Waits for a message, including the latest messages already in the folder
+         *
+         * @param predicate e.g. message -> message.getSubject().contains("OTP"), envelope and flags are prefetched
+         * @param timeout
+         * @return the latest matching message
+         * @throws MessagingException
+         */
+        public Message awaitAnyMessage(Predicate<Message> predicate, Duration timeout) throws MessagingException {
+            return mailbox().awaitMessage(predicate, timeout);
+        }
+
+
+        /**
+         * Waits for a message sent to the plus address of a tag or carrying the tag in the correlation header. One
+         * poller per run reads the mailbox and routes messages to the waiting scenarios, see {@link MailboxDispatcher}
+         *
+         * @param tag     e.g. MailboxDispatcher.newTag(), mailed to MailboxDispatcher.plusAddress(address, tag)
+         * @param timeout
+         * @return the message
+         */
+        public Message awaitRoutedMessage(String tag, Duration timeout) {
+            return dispatcher.await(tag, timeout);
+        }
+
         /**
          * @param max
          * @return
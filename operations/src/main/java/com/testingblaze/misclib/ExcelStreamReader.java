@@ -0,0 +1,403 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads xlsx sheets by pulling rows straight from the sheet xml (StAX), without building the workbook DOM.
+ * <p>
+ * The first row of a sheet is treated as the header. Rows are exposed lazily, or fully parsed once per jvm and
+ * cached by file path and last modified time.
+ * Cell values follow ExcelReader conventions: numbers are rounded to whole numbers, booleans are true/false and
+ * blank cells are empty strings.
+ */
+public final class ExcelStreamReader {
+    private static final Map<String, Sheet> sheetCache = new ConcurrentHashMap<>();
+    private static final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+    private ExcelStreamReader() {
+    }
+
+    /**
+     * Lazily stream the data rows of a sheet mapped by column name. Close the stream when not fully consumed.
+     *
+     * @param file      xlsx file
+     * @param sheetName
+     * @return rows as column name to value
+     */
+    public static Stream<Map<String, String>> streamRows(Path file, String sheetName) {
+        try {
+            return mapToColumnNames(rawRows(OPCPackage.open(file.toFile(), PackageAccess.READ), sheetName));
+        } catch (Exception e) {
+            throw new TestingBlazeRunTimeException("Failed to read sheet '" + sheetName + "' from " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lazily stream the data rows of a sheet mapped by column name. Close the stream when not fully consumed.
+     *
+     * @param workbook  xlsx content, e.g. a resource stream
+     * @param sheetName
+     * @return rows as column name to value
+     */
+    public static Stream<Map<String, String>> streamRows(InputStream workbook, String sheetName) {
+        try {
+            return mapToColumnNames(rawRows(OPCPackage.open(workbook), sheetName));
+        } catch (Exception e) {
+            throw new TestingBlazeRunTimeException("Failed to read sheet '" + sheetName + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parse a sheet once per jvm. The parsed sheet is re-used until the file is modified.
+     *
+     * @param file      xlsx file
+     * @param sheetName
+     * @return parsed sheet
+     */
+    public static Sheet readSheet(Path file, String sheetName) {
+        String cacheKey = file.toAbsolutePath().normalize() + "!" + sheetName;
+        long lastModified;
+        try {
+            lastModified = Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to read " + file + ": " + e.getMessage());
+        }
+        Sheet cachedSheet = sheetCache.get(cacheKey);
+        if (cachedSheet != null && cachedSheet.lastModified == lastModified) return cachedSheet;
+
+        try (Stream<String[]> rows = rawRows(OPCPackage.open(file.toFile(), PackageAccess.READ), sheetName)) {
+            Sheet sheet = toSheet(rows, lastModified);
+            sheetCache.put(cacheKey, sheet);
+            return sheet;
+        } catch (TestingBlazeRunTimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TestingBlazeRunTimeException("Failed to read sheet '" + sheetName + "' from " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parse a sheet without caching, for workbooks that are not files on disk
+     *
+     * @param workbook  xlsx content
+     * @param sheetName
+     * @return parsed sheet
+     */
+    public static Sheet readSheet(InputStream workbook, String sheetName) {
+        try (Stream<String[]> rows = rawRows(OPCPackage.open(workbook), sheetName)) {
+            return toSheet(rows, 0);
+        } catch (TestingBlazeRunTimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TestingBlazeRunTimeException("Failed to read sheet '" + sheetName + "': " + e.getMessage());
+        }
+    }
+
+    private static Sheet toSheet(Stream<String[]> rows, long lastModified) {
+        Iterator<String[]> iterator = rows.iterator();
+        String[] header = iterator.hasNext() ? iterator.next() : new String[0];
+        List<String[]> dataRows = new ArrayList<>();
+        iterator.forEachRemaining(row -> dataRows.add(fitToWidth(row, header.length)));
+        return new Sheet(header, dataRows, lastModified);
+    }
+
+    private static Stream<Map<String, String>> mapToColumnNames(Stream<String[]> rows) {
+        Iterator<String[]> iterator = rows.iterator();
+        String[] header = iterator.hasNext() ? iterator.next() : new String[0];
+        Iterator<Map<String, String>> mappedRows = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map<String, String> next() {
+                return toColumnMap(header, iterator.next());
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(mappedRows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(rows::close);
+    }
+
+    private static Map<String, String> toColumnMap(String[] header, String[] row) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i], i < row.length ? row[i] : "");
+        }
+        return columns;
+    }
+
+    private static String[] fitToWidth(String[] row, int width) {
+        if (row.length == width) return row;
+        String[] fitted = new String[width];
+        for (int i = 0; i < width; i++) {
+            fitted[i] = i < row.length ? row[i] : "";
+        }
+        return fitted;
+    }
+
+    /**
+     * rows of a sheet including the header row, read on demand from the sheet xml
+     */
+    private static Stream<String[]> rawRows(OPCPackage workbookPackage, String sheetName) throws Exception {
+        try {
+            XSSFReader reader = new XSSFReader(workbookPackage);
+            List<String> sharedStrings = readSharedStrings(reader);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                InputStream sheetData = sheets.next();
+                if (sheets.getSheetName().equals(sheetName)) {
+                    RowIterator rows = new RowIterator(xmlInputFactory.createXMLStreamReader(sheetData), sharedStrings, () -> {
+                        sheetData.close();
+                        workbookPackage.revert();
+                    });
+                    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                            .onClose(rows::close);
+                }
+                sheetData.close();
+            }
+            throw new TestingBlazeRunTimeException("Sheet '" + sheetName + "' does not exist");
+        } catch (Exception e) {
+            workbookPackage.revert();
+            throw e;
+        }
+    }
+
+    private static List<String> readSharedStrings(XSSFReader reader) throws Exception {
+        List<String> sharedStrings = new ArrayList<>();
+        InputStream sharedStringsData;
+        try {
+            sharedStringsData = reader.getSharedStringsData();
+        } catch (Exception e) {
+            // workbook without any text cells
+            return sharedStrings;
+        }
+        try (InputStream data = sharedStringsData) {
+            XMLStreamReader xml = xmlInputFactory.createXMLStreamReader(data);
+            StringBuilder item = null;
+            boolean isPhoneticRun = false;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String element = xml.getLocalName();
+                    if ("si".equals(element)) item = new StringBuilder();
+                    else if ("rPh".equals(element)) isPhoneticRun = true;
+                    else if ("t".equals(element) && item != null && !isPhoneticRun) item.append(xml.getElementText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String element = xml.getLocalName();
+                    if ("si".equals(element) && item != null) sharedStrings.add(item.toString());
+                    else if ("rPh".equals(element)) isPhoneticRun = false;
+                }
+            }
+            xml.close();
+        }
+        return sharedStrings;
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Header and data rows of a fully parsed sheet
+     */
+    public static final class Sheet {
+        private final String[] header;
+        private final List<String[]> rows;
+        private final long lastModified;
+
+        private Sheet(String[] header, List<String[]> rows, long lastModified) {
+            this.header = header;
+            this.rows = Collections.unmodifiableList(rows);
+            this.lastModified = lastModified;
+        }
+
+        public String[] getHeader() {
+            return header.clone();
+        }
+
+        /**
+         * @return data rows, each as wide as the header. Do not modify the arrays, they are shared across callers
+         */
+        public List<String[]> getRows() {
+            return rows;
+        }
+
+        /**
+         * @return data rows mapped by column name, created on demand
+         */
+        public Stream<Map<String, String>> streamRows() {
+            return rows.stream().map(row -> toColumnMap(header, row));
+        }
+
+        /**
+         * @return copy of the data rows in the ExcelReader String[][] format
+         */
+        public String[][] toArray() {
+            String[][] dataSets = new String[rows.size()][];
+            for (int i = 0; i < rows.size(); i++) {
+                dataSets[i] = rows.get(i).clone();
+            }
+            return dataSets;
+        }
+    }
+
+    private interface Closer {
+        void close() throws Exception;
+    }
+
+    /**
+     * Pulls one row at a time from the sheet xml
+     */
+    private static final class RowIterator implements Iterator<String[]>, AutoCloseable {
+        private final XMLStreamReader xml;
+        private final List<String> sharedStrings;
+        private final Closer closer;
+        private String[] nextRow;
+        private boolean isClosed = false;
+
+        RowIterator(XMLStreamReader xml, List<String> sharedStrings, Closer closer) {
+            this.xml = xml;
+            this.sharedStrings = sharedStrings;
+            this.closer = closer;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRow == null && !isClosed) {
+                nextRow = readRow();
+                if (nextRow == null) close();
+            }
+            return nextRow != null;
+        }
+
+        @Override
+        public String[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String[] row = nextRow;
+            nextRow = null;
+            return row;
+        }
+
+        @Override
+        public void close() {
+            if (isClosed) return;
+            isClosed = true;
+            try {
+                xml.close();
+                closer.close();
+            } catch (Exception e) {
+                // nothing left to read
+            }
+        }
+
+        private String[] readRow() {
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && "row".equals(xml.getLocalName())) {
+                        return readCells();
+                    }
+                }
+                return null;
+            } catch (XMLStreamException e) {
+                close();
+                throw new TestingBlazeRunTimeException("Failed to read excel row: " + e.getMessage());
+            }
+        }
+
+        private String[] readCells() throws XMLStreamException {
+            List<String> cells = new ArrayList<>();
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+                    String reference = xml.getAttributeValue(null, "r");
+                    String type = xml.getAttributeValue(null, "t");
+                    int column = reference != null ? columnIndex(reference) : cells.size();
+                    while (cells.size() < column) cells.add("");
+                    cells.add(readCellValue(type));
+                } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+                    break;
+                }
+            }
+            return cells.toArray(new String[0]);
+        }
+
+        private String readCellValue(String type) throws XMLStreamException {
+            String value = null;
+            StringBuilder inlineText = new StringBuilder();
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if ("v".equals(xml.getLocalName())) value = xml.getElementText();
+                    else if ("t".equals(xml.getLocalName())) inlineText.append(xml.getElementText());
+                } else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) {
+                    break;
+                }
+            }
+            if ("inlineStr".equals(type)) return inlineText.toString();
+            if (value == null || value.isEmpty()) return "";
+            if ("s".equals(type)) return sharedStrings.get(Integer.parseInt(value.trim()));
+            if ("b".equals(type)) return String.valueOf("1".equals(value.trim()));
+            if ("str".equals(type) || "e".equals(type)) return value;
+            try {
+                return Long.toString(Math.round(Double.parseDouble(value)));
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+
+        private static int columnIndex(String cellReference) {
+            int column = 0;
+            for (int i = 0; i < cellReference.length() && Character.isLetter(cellReference.charAt(i)); i++) {
+                column = column * 26 + (Character.toUpperCase(cellReference.charAt(i)) - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Writes rows to an xlsx sheet (SXSSF) or a csv file without keeping the whole sheet in memory.
+ * <p>
+ * Xlsx rows are flushed to a temp file once more than rowWindow rows are pending, and the workbook is written once on
+ * {@link #close()}. Only the new sheet is streamed: adding a sheet to an existing file loads the existing sheets
+ * fully into memory (XSSFWorkbook), as POI can not stream sheets it reads. Write large sheets to a file of their own. Csv rows go straight to the file; in append mode existing content is never read.
+ * Null cells are left empty, numbers and booleans keep their type and anything else is written as text.
+ */
+public final class ExcelStreamWriter implements AutoCloseable {
+    public static final int DEFAULT_ROW_WINDOW = System.getProperty("excelRowWindow") != null ? Integer.parseInt(System.getProperty("excelRowWindow")) : 100;
+
+    private final Path file;
+    private final SXSSFWorkbook workbook;
+    private final SXSSFSheet sheet;
+    private final Writer csvWriter;
+    private int rowId;
+
+    private ExcelStreamWriter(Path file, SXSSFWorkbook workbook, SXSSFSheet sheet, Writer csvWriter) {
+        this.file = file;
+        this.workbook = workbook;
+        this.sheet = sheet;
+        this.csvWriter = csvWriter;
+    }
+
+    /**
+     * Open a writer for a new sheet. When the file already exists its other sheets are kept as they are; they are
+     * loaded fully into memory, so memory use grows with the size of the existing file.
+     *
+     * @param file      xlsx file
+     * @param sheetName name of the sheet to create
+     * @param rowWindow number of rows kept in memory before flushing to disk
+     * @return writer positioned at the first row of the new sheet
+     */
+    public static ExcelStreamWriter toExcel(Path file, String sheetName, int rowWindow) {
+        return toExcel(file, sheetName, rowWindow, false);
+    }
+
+    /**
+     * Open a writer for a new sheet.
+     *
+     * @param file      xlsx file
+     * @param sheetName name of the sheet to create
+     * @param rowWindow number of rows kept in memory before flushing to disk
+     * @param overwrite true to write a new workbook over an existing file, false to add the sheet to it
+     * @return writer positioned at the first row of the new sheet
+     */
+    public static ExcelStreamWriter toExcel(Path file, String sheetName, int rowWindow, boolean overwrite) {
+        try {
+            SXSSFWorkbook workbook;
+            if (!overwrite && Files.exists(file)) {
+                try (InputStream is = Files.newInputStream(file)) {
+                    workbook = new SXSSFWorkbook(new XSSFWorkbook(is), rowWindow);
+                }
+            } else {
+                workbook = new SXSSFWorkbook(rowWindow);
+            }
+            workbook.setCompressTempFiles(true);
+            return new ExcelStreamWriter(file, workbook, workbook.createSheet(sheetName), null);
+        } catch (IOException | RuntimeException e) {
+            throw new TestingBlazeRunTimeException("Failed to open " + file + " for writing sheet '" + sheetName + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Open a writer for a csv file.
+     *
+     * @param file   csv file
+     * @param append true to add rows after the existing content, false to replace the file
+     * @return writer
+     */
+    public static ExcelStreamWriter toCsv(Path file, boolean append) {
+        try {
+            Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+            return new ExcelStreamWriter(file, null, null, writer);
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to open " + file + " for writing: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write the next row.
+     *
+     * @param cells cell values starting at the first column
+     * @return this writer
+     */
+    public ExcelStreamWriter writeRow(Object... cells) {
+        if (csvWriter != null) {
+            writeCsvRow(cells);
+        } else {
+            Row row = sheet.createRow(rowId);
+            for (int cellId = 0; cellId < cells.length; cellId++) {
+                if (cells[cellId] != null) {
+                    setCellValue(row.createCell(cellId), cells[cellId]);
+                }
+            }
+        }
+        rowId++;
+        return this;
+    }
+
+    /**
+     * Write rows in the iteration order of the map, e.g. a TreeMap keyed by row number.
+     *
+     * @param rowData row key to cell values
+     * @return this writer
+     */
+    public ExcelStreamWriter writeRows(Map<String, Object[]> rowData) {
+        for (Object[] cells : rowData.values()) {
+            writeRow(cells);
+        }
+        return this;
+    }
+
+    /**
+     * @return number of rows written by this writer
+     */
+    public int getRowCount() {
+        return rowId;
+    }
+
+    /**
+     * Write the workbook (xlsx) or flush the file (csv) and release temp files.
+     */
+    @Override
+    public void close() {
+        try {
+            if (csvWriter != null) {
+                csvWriter.close();
+                return;
+            }
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    workbook.write(out);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                // left over only if writing or moving failed
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to write " + file + ": " + e.getMessage());
+        } finally {
+            if (workbook != null) {
+                workbook.dispose();
+                try {
+                    workbook.close();
+                } catch (IOException ignored) {
+                    // temp files are already disposed
+                }
+            }
+        }
+    }
+
+    private void setCellValue(Cell cell, Object value) {
+        if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    private void writeCsvRow(Object[] cells) {
+        try {
+            for (int cellId = 0; cellId < cells.length; cellId++) {
+                if (cellId > 0) {
+                    csvWriter.write(',');
+                }
+                if (cells[cellId] != null) {
+                    csvWriter.write(escapeCsv(cells[cellId].toString()));
+                }
+            }
+            csvWriter.write(System.lineSeparator());
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to write row " + rowId + " to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
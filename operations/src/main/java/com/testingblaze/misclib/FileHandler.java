@@ -22,21 +22,14 @@ package com.testingblaze.misclib;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.itextpdf.text.pdf.PdfReader;
-import com.itextpdf.text.pdf.parser.PdfTextExtractor;
 import com.testingblaze.controller.DeviceBucket;
+import com.testingblaze.exception.TestingBlazeRunTimeException;
 import com.testingblaze.objects.InstanceRecording;
 import com.testingblaze.register.I;
 import com.testingblaze.report.LogLevel;
 import org.apache.poi.hwpf.HWPFDocument;
 import org.apache.poi.hwpf.extractor.WordExtractor;
 import org.apache.poi.openxml4j.exceptions.OLE2NotOfficeXmlFileException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.xssf.usermodel.XSSFCell;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
@@ -48,21 +41,26 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public final class FileHandler {
     private final ExcelReader excelReader;
@@ -146,7 +144,26 @@ public final class FileHandler {
      */
     public File[] toGetCompleteFilesListOnLocalDirectory(String path) {
         File directory = new File(path);
-        return directory.listFiles();
+        File[] files = directory.listFiles();
+        return files != null ? files : new File[0];
+    }
+
+    /**
+     * record the files in the download directory, so the next wait only accepts a file downloaded after this
+     */
+    public void toExpectDownload() {
+        DownloadWatcher.expectDownload();
+    }
+
+    /**
+     * wait for a browser download to complete, without polling
+     *
+     * @param pattern          file name glob e.g. "report*.xlsx"
+     * @param timeoutInSeconds
+     * @return downloaded file
+     */
+    public File toAwaitDownload(String pattern, int timeoutInSeconds) {
+        return DownloadWatcher.awaitDownload(pattern, timeoutInSeconds).toFile();
     }
 
     /**
@@ -203,7 +220,7 @@ public final class FileHandler {
         for (File files : directory) {
             if (files.getName().equalsIgnoreCase((fromFileName))) {
                 new File(files.getAbsolutePath())
-                        .renameTo(new File(filePath.getAbsolutePath() + File.pathSeparatorChar + toFileName));
+                        .renameTo(new File(filePath.getAbsolutePath() + File.separator + toFileName));
                 break;
             }
         }
@@ -260,7 +277,7 @@ public final class FileHandler {
     }
 
     /**
-     * This method downloads the file opened in browser using the URL. The file gets save to target folder
+     * This method downloads the file opened in browser using the URL. The file gets save to the download directory
      *
      * @param fileNameWithExtension
      * @author jitendra.pisal
@@ -300,6 +317,33 @@ public final class FileHandler {
         return getClass().getClassLoader().getResourceAsStream(fileName);
     }
 
+    /**
+     * resources on disk can be cached by modification time, resources inside jars can not
+     */
+    private Path getResourcePath(String fileName) {
+        URL resource = getClass().getResource("/" + fileName);
+        try {
+            return resource != null && "file".equals(resource.getProtocol()) ? Paths.get(resource.toURI()) : null;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * path of a resource, copied to a temp file first when it is inside a jar
+     */
+    private Path getResourceAsFile(String fileName) throws IOException {
+        Path resource = getResourcePath(fileName);
+        if (resource != null) return resource;
+        try (InputStream is = getResourceAsStream(fileName)) {
+            if (is == null) throw new FileNotFoundException(fileName + " not found in resources");
+            Path copy = Files.createTempFile("blaze-resource", fileName.substring(fileName.lastIndexOf('/') + 1));
+            copy.toFile().deleteOnExit();
+            Files.copy(is, copy, StandardCopyOption.REPLACE_EXISTING);
+            return copy;
+        }
+    }
+
     /**
      * Handles all methods related to Doc files
      *
@@ -314,16 +358,13 @@ public final class FileHandler {
          * @return
          */
         private String getContentFromDocxFile(String fileName) {
-            InputStream is = getResourceAsStream(fileName);
-            HWPFDocument doc = null;
-            WordExtractor wordExtractor = null;
-            try {
-                doc = new HWPFDocument(is);
-                wordExtractor = new WordExtractor(doc);
+            try (InputStream is = getResourceAsStream(fileName);
+                 WordExtractor wordExtractor = new WordExtractor(new HWPFDocument(is))) {
+                return wordExtractor.getText();
             } catch (IOException e) {
                 e.printStackTrace();
+                return null;
             }
-            return wordExtractor.getText();
         }
 
         /**
@@ -335,14 +376,7 @@ public final class FileHandler {
          * @author nauman.shahid
          */
         public List<XWPFParagraph> readDocFile(String fileName) {
-            InputStream is = getResourceAsStream(fileName);
-            XWPFDocument doc = null;
-            try {
-                doc = new XWPFDocument(is);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            return doc.getParagraphs();
+            return getAllDocControls(fileName).getParagraphs();
         }
 
         /**
@@ -353,18 +387,31 @@ public final class FileHandler {
          * @author jitendra.pisal
          */
         public String getContentFromDocFile(String fileName) {
-            InputStream is = getResourceAsStream(fileName);
-            XWPFDocument doc = null;
-            XWPFWordExtractor wordExtractor = null;
             try {
-                doc = new XWPFDocument(is);
-                wordExtractor = new XWPFWordExtractor(doc);
+                Path resource = getResourcePath(fileName);
+                if (resource != null) return DocumentText.docxText(resource);
+                try (InputStream is = getResourceAsStream(fileName);
+                     XWPFWordExtractor wordExtractor = new XWPFWordExtractor(new XWPFDocument(is))) {
+                    return wordExtractor.getText();
+                }
             } catch (IOException e) {
                 e.printStackTrace();
+                return null;
             } catch (OLE2NotOfficeXmlFileException oel) {
                 return getContentFromDocxFile(fileName);
             }
-            return wordExtractor.getText();
+        }
+
+        /**
+         * Check if a docx file contains a text, reading paragraphs only until the first match.
+         *
+         * @param filePath
+         * @param fileName
+         * @param text     text to search for within a paragraph
+         * @return true if found
+         */
+        public boolean docFileContainsText(String filePath, String fileName, String text) {
+            return DocumentText.docxContainsText(Paths.get(filePath, fileName), text);
         }
 
         /**
@@ -376,14 +423,12 @@ public final class FileHandler {
          * @author nauman.shahid
          */
         public XWPFDocument getAllDocControls(String fileName) {
-            InputStream is = getResourceAsStream(fileName);
-            XWPFDocument doc = null;
-            try {
-                doc = new XWPFDocument(is);
+            try (InputStream is = getResourceAsStream(fileName)) {
+                return new XWPFDocument(is);
             } catch (IOException e) {
                 e.printStackTrace();
+                return null;
             }
-            return doc;
         }
 
         /**
@@ -396,19 +441,12 @@ public final class FileHandler {
          * @author nauman.shahid
          */
         public List<XWPFParagraph> readDocFile(String filePath, String fileName) {
-            InputStream is = null;
-            try {
-                is = new FileInputStream(filePath + "/" + fileName);
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
-            XWPFDocument doc = null;
-            try {
-                doc = new XWPFDocument(is);
+            try (InputStream is = new FileInputStream(filePath + "/" + fileName)) {
+                return new XWPFDocument(is).getParagraphs();
             } catch (IOException e) {
                 e.printStackTrace();
+                return null;
             }
-            return doc.getParagraphs();
         }
     }
 
@@ -419,12 +457,8 @@ public final class FileHandler {
      */
     public final class ExcelReader {
 
-        private XSSFWorkbook workbook;
-        private XSSFSheet sheet;
-        private XSSFRow row;
-
         /**
-         * Create a new Excel file and write data to it.
+         * Create a new sheet in an excel file and write data to it. The file is created when it does not exist.
          * @param fileName
          * @param sheetName
          * @param filePath path where you want to create new file
@@ -432,31 +466,33 @@ public final class FileHandler {
          * @throws IOException
          */
         public void writeExcelFile(String fileName, String sheetName, String filePath, TreeMap<String, Object[]> rowData) throws IOException {
-            InputStream is = new FileInputStream(filePath + "/" + fileName);
-            workbook = new XSSFWorkbook(is);
-            sheet = workbook.createSheet(sheetName);
-
-            Set<String> keyid = rowData.keySet();
-
-            int rowid = 0;
-
-            // writing the data into the sheets...
-
-            for (String key : keyid) {
+            try (ExcelStreamWriter writer = openExcelWriter(fileName, sheetName, filePath)) {
+                writer.writeRows(rowData);
+            }
+        }
 
-                row = sheet.createRow(rowid++);
-                Object[] objectArr = rowData.get(key);
-                int cellid = 0;
+        /**
+         * Open a streaming writer for a new sheet, to append rows across several calls before writing the file once on close.
+         * @param fileName
+         * @param sheetName
+         * @param filePath path of the file
+         * @return writer, close it to write the file
+         */
+        public ExcelStreamWriter openExcelWriter(String fileName, String sheetName, String filePath) {
+            return ExcelStreamWriter.toExcel(Paths.get(filePath, fileName), sheetName, ExcelStreamWriter.DEFAULT_ROW_WINDOW);
+        }
 
-                for (Object obj : objectArr) {
-                    Cell cell = row.createCell(cellid++);
-                    cell.setCellValue((String) obj);
-                }
+        /**
+         * Write data to a csv file.
+         * @param fileName
+         * @param filePath path of the file
+         * @param rowData A treemap with row number and data set
+         * @param append true to add rows after the existing content without reading it, false to replace the file
+         */
+        public void writeCsvFile(String fileName, String filePath, TreeMap<String, Object[]> rowData, boolean append) {
+            try (ExcelStreamWriter writer = ExcelStreamWriter.toCsv(Paths.get(filePath, fileName), append)) {
+                writer.writeRows(rowData);
             }
-            FileOutputStream out = new FileOutputStream(filePath + "/" + fileName);
-
-            workbook.write(out);
-            out.close();
         }
 
         /**
@@ -469,28 +505,64 @@ public final class FileHandler {
          * @author nauman.shahid
          */
         public String[][] readExcelFile(String fileName, String sheetName) {
-            try {
-                InputStream is = getClass().getResourceAsStream("/" + fileName);
-                workbook = new XSSFWorkbook(is);
-            } catch (Exception e) {
+            Path resource = getResourcePath(fileName);
+            if (resource != null) return ExcelStreamReader.readSheet(resource, sheetName).toArray();
+            return ExcelStreamReader.readSheet(getClass().getResourceAsStream("/" + fileName), sheetName).toArray();
+        }
 
-            }
-            return getDataFromSheet(sheetName);
+        /**
+         * Lazily stream rows of a sheet placed in resources folder, mapped by column names of the first row.
+         * Suitable for very large sheets, rows are read on demand. Use in try-with-resources when not fully consumed.
+         *
+         * @param fileName
+         * @param sheetName
+         * @return stream of rows as column name to value
+         */
+        public Stream<Map<String, String>> streamExcelFile(String fileName, String sheetName) {
+            Path resource = getResourcePath(fileName);
+            if (resource != null) return ExcelStreamReader.streamRows(resource, sheetName);
+            return ExcelStreamReader.streamRows(getClass().getResourceAsStream("/" + fileName), sheetName);
         }
 
         /**
-         * Read downloaded Excel file at default location /target
+         * Lazily stream rows of a sheet at a custom path, mapped by column names of the first row.
          *
-         * @param fileName  name of file with extension
+         * @param fileName
+         * @param sheetName
+         * @param filePath
+         * @return stream of rows as column name to value
+         */
+        public Stream<Map<String, String>> streamExcelFile(String fileName, String sheetName, String filePath) {
+            return ExcelStreamReader.streamRows(Paths.get(filePath, fileName), sheetName);
+        }
+
+        /**
+         * Read rows matching a filter, mapped by column names of the first row.
+         * The sheet is parsed once per jvm and re-parsed only when the file changes.
+         *
+         * @param fileName
+         * @param sheetName
+         * @param filePath
+         * @param rowFilter e.g. row -> "Active".equals(row.get("Status"))
+         * @return matching rows as column name to value
+         */
+        public List<Map<String, String>> readExcelFile(String fileName, String sheetName, String filePath, Predicate<Map<String, String>> rowFilter) {
+            return ExcelStreamReader.readSheet(Paths.get(filePath, fileName), sheetName).streamRows()
+                    .filter(rowFilter).collect(Collectors.toList());
+        }
+
+
+        /**
+         * Wait for a downloaded Excel file in the download directory (default target/downloads/<scenario>) and read it
+         *
+         * @param fileName  name of file with extension, may contain glob wildcards
          * @param sheetName
          * @return string[][]
          * @author nauman.shahid
          */
         public String[][] readFromDownloadedFile(String fileName, String sheetName) {
-            File file = new File(System.getProperty("user.dir") + File.pathSeparatorChar + "target");
-            toRenameDownloadedTmpFile(file, fileName, "xlsx");
-            return readExcelFile(fileName, sheetName,
-                    file.getAbsolutePath() + File.pathSeparatorChar + fileName);
+            Path download = DownloadWatcher.awaitDownload(fileName, DownloadWatcher.DEFAULT_TIMEOUT_IN_SECONDS);
+            return readExcelFile(download.getFileName().toString(), sheetName, download.getParent().toString());
         }
 
         /**
@@ -503,41 +575,7 @@ public final class FileHandler {
          * @author nauman.shahid
          */
         public String[][] readExcelFile(String fileName, String sheetName, String filePath) {
-            try {
-                InputStream is = new FileInputStream(filePath + "/" + fileName);
-                workbook = new XSSFWorkbook(is);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            return getDataFromSheet(sheetName);
-        }
-
-        private String[][] getDataFromSheet(String sheetName) {
-            String[][] dataSets = null;
-            try {
-                XSSFSheet sheet = workbook.getSheet(sheetName);
-                int totalRow = sheet.getLastRowNum() + 1;
-                int totalColumn = sheet.getRow(0).getLastCellNum();
-                dataSets = new String[totalRow - 1][totalColumn];
-                for (int i = 1; i < totalRow; i++) {
-                    XSSFRow rows = sheet.getRow(i);
-                    for (int j = 0; j < totalColumn; j++) {
-                        XSSFCell cell = rows.getCell(j);
-                        if (cell.getCellTypeEnum() == CellType.STRING)
-                            dataSets[i - 1][j] = cell.getStringCellValue();
-                        else if (cell.getCellTypeEnum() == CellType.NUMERIC) {
-                            long cellText = Math.round(cell.getNumericCellValue());
-                            String cellTextString = Long.toString(cellText);
-                            dataSets[i - 1][j] = cellTextString;
-                        } else
-                            dataSets[i - 1][j] = String.valueOf(cell.getBooleanCellValue());
-                    }
-                }
-
-            } catch (Exception e) {
-                //Console log Exception in reading Xlxs file" + e.getMessage());
-            }
-            return dataSets;
+            return ExcelStreamReader.readSheet(Paths.get(filePath, fileName), sheetName).toArray();
         }
 
         /**
@@ -551,46 +589,20 @@ public final class FileHandler {
          */
 
         public void parseAnyFileAsExcel(String fileToBeParsedPath, String afterParsingFilePathWithName) {
-            BufferedReader br = null;
-            try {
-                br = new BufferedReader(new FileReader(new File(fileToBeParsedPath)));
-            } catch (FileNotFoundException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
-
-            XSSFWorkbook xwork = new XSSFWorkbook();
-            XSSFSheet xsheet = xwork.createSheet("testBlaze");
-            XSSFRow xrow = null;
-
-            int rowid = 0;
-            String line;
-            try {
+            // platform charset and lenient decoding, as any file may be parsed; a new workbook on every run
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(Files.newInputStream(Paths.get(fileToBeParsedPath)), Charset.defaultCharset()));
+                 ExcelStreamWriter writer = ExcelStreamWriter.toExcel(Paths.get(afterParsingFilePathWithName), "testBlaze", ExcelStreamWriter.DEFAULT_ROW_WINDOW, true)) {
+                String line;
                 while ((line = br.readLine()) != null) {
-                    String[] split = line.split("<br>");
-                    Cell cell;
-                    for (int i = 0; i < split.length; i++) {
-                        xrow = xsheet.createRow(rowid);
-                        cell = xrow.createCell(2);
-                        cell.setCellValue(split[i]);
-                        String[] columnSplit = split[i].split("\\W+");
-                        int columnCount = 3;
-                        for (int j = 0; j < columnSplit.length; j++) {
-
-                            cell = xrow.createCell(columnCount++);
-                            cell.setCellValue(columnSplit[j]);
-                        }
-
-                        rowid++;
+                    for (String text : line.split("<br>")) {
+                        String[] columnSplit = text.split("\\W+");
+                        Object[] cells = new Object[3 + columnSplit.length];
+                        cells[2] = text;
+                        System.arraycopy(columnSplit, 0, cells, 3, columnSplit.length);
+                        writer.writeRow(cells);
                     }
-
-                    // Create file system using specific name
-                    FileOutputStream fout = new FileOutputStream(new File(afterParsingFilePathWithName));
-                    xwork.write(fout);
-                    fout.close();
                 }
             } catch (IOException e) {
-                // TODO Auto-generated catch block
                 e.printStackTrace();
             }
             //Console log  File Parsing process completed");
@@ -603,8 +615,6 @@ public final class FileHandler {
      * @author nauman.shahid
      */
     public final class JsonReader {
-        InputStream is;
-        Reader reader;
         JsonParser jsonParser;
 
         /**
@@ -616,12 +626,7 @@ public final class FileHandler {
          * @return
          */
         public String getDataFromJson(String fileName, String childObject, String key) {
-            setUpReadStream(fileName);
-            // getting the root element - the whole set of json data
-            JsonElement rootElement = jsonParser.parse(reader);
-            // covert it to the json object to access different child objects and arrays
-            JsonObject theObject = rootElement.getAsJsonObject();
-            return theObject.getAsJsonObject(childObject).get(key).getAsString();
+            return JsonDataStore.resolve(fileName, JsonDataStore.pointerOf(childObject, key)).getAsString();
         }
 
         /**
@@ -631,11 +636,7 @@ public final class FileHandler {
          * @return
          */
         public JsonElement getDataFromJson(String fileName) {
-            setUpReadStream(fileName);
-            // getting the root element - the whole set of json data
-            JsonElement rootElement = jsonParser.parse(reader);
-            // covert it to the json object to access different child objects and arrays
-            return rootElement.getAsJsonObject();
+            return JsonDataStore.getElement(fileName, "").getAsJsonObject();
         }
 
         /**
@@ -648,13 +649,7 @@ public final class FileHandler {
          * @return
          */
         public String getDataFromJson(String fileName, String firstChildObject, String secondChildObject, String key) {
-            setUpReadStream(fileName);
-            // getting the root element - the whole set of json data
-            JsonElement rootElement = jsonParser.parse(reader);
-            // covert it to the json object to access different child objects and arrays
-            JsonObject theObject = rootElement.getAsJsonObject();
-            JsonObject childObject = theObject.getAsJsonObject(firstChildObject).getAsJsonObject(secondChildObject);
-            return childObject.get(key).toString();
+            return JsonDataStore.resolve(fileName, JsonDataStore.pointerOf(firstChildObject, secondChildObject, key)).toString();
         }
 
         /**
@@ -669,13 +664,19 @@ public final class FileHandler {
          */
         public String getDataFromJson(String fileName, String firstChildObject, String secondChildObject,
                                       String arrayName, String key) {
-            setUpReadStream(fileName);
-            // getting the root element - the whole set of json data
-            JsonElement rootElement = jsonParser.parse(reader);
-            // covert it to the json object to access different child objects and arrays
-            JsonObject theObject = rootElement.getAsJsonObject();
-            JsonObject childObject = theObject.getAsJsonObject(firstChildObject).getAsJsonObject(secondChildObject);
-            return childObject.getAsJsonArray(arrayName).getAsJsonObject().get(key).toString();
+            return JsonDataStore.resolve(fileName, JsonDataStore.pointerOf(firstChildObject, secondChildObject, arrayName))
+                    .getAsJsonObject().get(key).toString();
+        }
+
+        /**
+         * read data by JSON pointer, e.g. "/profile/users/0/name"
+         *
+         * @param fileName
+         * @param pointer
+         * @return value as text, strings unquoted
+         */
+        public String getDataByPointer(String fileName, String pointer) {
+            return JsonDataStore.getString(fileName, pointer);
         }
 
         /**
@@ -701,24 +702,7 @@ public final class FileHandler {
          */
         public JsonObject getDataArrayFromJson(String fileName, String firstChildObject, String secondChildObject,
                                                String arrayName, String key) {
-            setUpReadStream(fileName);
-            // getting the root element - the whole set of json data
-            JsonElement rootElement = jsonParser.parse(reader);
-            // covert it to the json object to access different child objects and arrays
-            JsonObject theObject = rootElement.getAsJsonObject();
-            JsonObject childObject = theObject.getAsJsonObject(firstChildObject).getAsJsonObject(secondChildObject);
-            return childObject.getAsJsonArray(arrayName).getAsJsonObject();
-        }
-
-        /**
-         * maange instance creation and input stream
-         *
-         * @param fileName
-         */
-        private void setUpReadStream(String fileName) {
-            is = getClass().getClassLoader().getResourceAsStream(fileName);
-            reader = new InputStreamReader(is);
-            getJsonParserInstance();
+            return JsonDataStore.getElement(fileName, JsonDataStore.pointerOf(firstChildObject, secondChildObject, arrayName)).getAsJsonObject();
         }
 
         /**
@@ -738,11 +722,9 @@ public final class FileHandler {
      * @author nauman.shahid
      */
     public final class AdobeReader {
-        InputStream is;
-        Reader reader;
 
         /**
-         * Read downloaded pdf file with extension at default location /target
+         * Wait for a downloaded pdf file in the download directory (default target/downloads/<scenario>) and read it
          *
          * @param fileName   name of file
          * @param pageNumber
@@ -750,10 +732,8 @@ public final class FileHandler {
          * @author nauman.shahid
          */
         public String readFromDownloadedFile(String fileName, int pageNumber) {
-            File file = new File(System.getProperty("user.dir") + File.pathSeparatorChar + "target");
-            toRenameDownloadedTmpFile(file, fileName, "pdf");
             return readFromAdobeFileOnLocalAtUserDirectory(
-                    file.getAbsolutePath() + File.pathSeparatorChar + fileName, pageNumber);
+                    DownloadWatcher.awaitDownload(fileName, DownloadWatcher.DEFAULT_TIMEOUT_IN_SECONDS).toString(), pageNumber);
         }
 
 
@@ -797,14 +777,26 @@ public final class FileHandler {
         }
 
         /**
-         * manage instance creation
+         * read a range of pages from a file at a specific location, extracted in parallel
          *
-         * @param fileName
-         * @return
-         * @author nauman.shahid
+         * @param fileName full path of the file
+         * @param fromPage first page, starting at 1
+         * @param toPage   last page (inclusive), 0 for the last page of the document
+         * @return text of each page
+         */
+        public List<String> readPagesFromAdobeFile(String fileName, int fromPage, int toPage) {
+            return DocumentText.pdfPages(Paths.get(fileName), fromPage, toPage);
+        }
+
+        /**
+         * find the first page of a file at a specific location containing a text, pages after the match are not read
+         *
+         * @param fileName full path of the file
+         * @param text     text to search for within a page
+         * @return page number, -1 if not found
          */
-        private InputStream setUpReadStream(String fileName) {
-            return is = getClass().getClassLoader().getResourceAsStream("/" + fileName);
+        public int findPageContainingText(String fileName, String text) {
+            return DocumentText.findPdfPageContaining(Paths.get(fileName), text, 1, 0);
         }
 
         /**
@@ -814,18 +806,12 @@ public final class FileHandler {
          * @author nauman.shahid
          */
         private String adobeReader(String fileName, int pageNumber) {
-            String page = null;
             try {
-                PdfReader reader = new PdfReader(setUpReadStream(fileName));
-                //Console log This PDF has " + reader.getNumberOfPages() + " pages.");
-                page = PdfTextExtractor.getTextFromPage(reader, pageNumber);
-                //Console log Page Content:\n\n" + page + "\n\n");
-                //Console log Is this document tampered: " + reader.isTampered());
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
+                return DocumentText.pdfPage(getResourceAsFile(fileName), pageNumber);
+            } catch (IOException | TestingBlazeRunTimeException e) {
                 e.printStackTrace();
+                return null;
             }
-            return page;
         }
 
         /**
@@ -835,18 +821,12 @@ public final class FileHandler {
          * @author nauman.shahid
          */
         private String adobeReaderAtSpecificLocation(String path, int pageNumber) {
-            String page = null;
             try {
-                PdfReader reader = new PdfReader(path);
-                //Console log This PDF has " + reader.getNumberOfPages() + " pages.");
-                page = PdfTextExtractor.getTextFromPage(reader, pageNumber);
-                //Console log Page Content:\n\n" + page + "\n\n");
-                //Console log  Is this document tampered: " + reader.isTampered());
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
+                return DocumentText.pdfPage(Paths.get(path), pageNumber);
+            } catch (TestingBlazeRunTimeException e) {
                 e.printStackTrace();
+                return null;
             }
-            return page;
         }
 
         /**
@@ -859,18 +839,8 @@ public final class FileHandler {
          */
         private String adobeReaderFromURL(String url, int pageNumber)
                 throws MalformedURLException, FileNotFoundException {
-            String page = null;
-            try {
-                PdfReader reader = new PdfReader(setUpReadStream(downloadURLBasePDF(url)));
-                //Console log This PDF has " + reader.getNumberOfPages() + " pages.");
-                page = PdfTextExtractor.getTextFromPage(reader, pageNumber);
-                //Console log Page Content:\n\n" + page + "\n\n");
-                //Console log Is this document tampered: " + reader.isTampered());
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
-            return page;
+            return adobeReaderAtSpecificLocation(
+                    Paths.get(System.getProperty("user.dir"), "target", downloadURLBasePDF(url)).toString(), pageNumber);
         }
 
         /**
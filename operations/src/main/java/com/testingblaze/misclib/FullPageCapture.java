@@ -0,0 +1,190 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Full page screenshots as png.
+ * <p>
+ * Chrome is asked through the driver's devtools endpoint to render the whole page at once (Page.captureScreenshot
+ * with captureBeyondViewport). Other browsers, or chrome when that fails, are scrolled viewport by viewport; each
+ * scroll waits until the scroll position held for two animation frames instead of sleeping, and every viewport is
+ * appended to a streamed png right away so only one viewport is decoded at a time.
+ * <br>
+ * -DfullPageCapture=auto (default), devtools or stitch picks the way.
+ */
+public final class FullPageCapture {
+    private static final String mode = System.getProperty("fullPageCapture") != null ? System.getProperty("fullPageCapture").toLowerCase() : "auto";
+    private static final String SCROLL_AND_SETTLE = "var y = arguments[0], done = arguments[arguments.length - 1], last = -1, stable = 0;"
+            + "window.scrollTo(window.scrollX, y);"
+            + "(function check() {"
+            + " requestAnimationFrame(function () {"
+            + "  var now = window.pageYOffset;"
+            + "  if (now === last && ++stable >= 2) { done(now); return; }"
+            + "  if (now !== last) { stable = 0; last = now; }"
+            + "  check();"
+            + " });"
+            + "})();";
+    private static final String PAGE_METRICS = "var d = document.documentElement, b = document.body;"
+            + "return [Math.max(d.scrollHeight, b ? b.scrollHeight : 0), d.clientHeight, window.innerHeight, window.pageYOffset];";
+    private static final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private static volatile boolean devToolsUnavailable;
+
+    private FullPageCapture() {
+    }
+
+    /**
+     * @param driver
+     * @return png of the whole page
+     */
+    public static byte[] capturePng(WebDriver driver) {
+        if (!"stitch".equals(mode) && !devToolsUnavailable) {
+            byte[] png = captureWithDevTools(driver);
+            if (png != null) {
+                return png;
+            }
+            if ("devtools".equals(mode)) {
+                throw new TestingBlazeRunTimeException("Full page screenshot through devtools is not available for " + driver);
+            }
+        }
+        return captureByStitching(driver);
+    }
+
+    /**
+     * @return the png, or null if the driver has no devtools endpoint
+     */
+    private static byte[] captureWithDevTools(WebDriver driver) {
+        if (!(driver instanceof RemoteWebDriver) || !"chrome".equalsIgnoreCase(((RemoteWebDriver) driver).getCapabilities().getBrowserName())) {
+            return null;
+        }
+        CommandExecutor executor = ((RemoteWebDriver) driver).getCommandExecutor();
+        if (!(executor instanceof HttpCommandExecutor) || ((RemoteWebDriver) driver).getSessionId() == null) {
+            return null;
+        }
+        String endpoint = ((HttpCommandExecutor) executor).getAddressOfRemoteServer().toString().replaceAll("/+$", "")
+                + "/session/" + ((RemoteWebDriver) driver).getSessionId() + "/goog/cdp/execute";
+        try {
+            JsonObject metrics = devTools(endpoint, "Page.getLayoutMetrics", new JsonObject());
+            JsonObject size = metrics.has("cssContentSize") ? metrics.getAsJsonObject("cssContentSize") : metrics.getAsJsonObject("contentSize");
+            JsonObject clip = new JsonObject();
+            clip.addProperty("x", 0);
+            clip.addProperty("y", 0);
+            clip.addProperty("width", size.get("width").getAsDouble());
+            clip.addProperty("height", size.get("height").getAsDouble());
+            clip.addProperty("scale", 1);
+            JsonObject params = new JsonObject();
+            params.addProperty("format", "png");
+            params.addProperty("captureBeyondViewport", true);
+            params.add("clip", clip);
+            return Base64.getDecoder().decode(devTools(endpoint, "Page.captureScreenshot", params).get("data").getAsString());
+        } catch (IOException | RuntimeException e) {
+            // old chrome or a grid that does not forward devtools commands
+            devToolsUnavailable = true;
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static JsonObject devTools(String endpoint, String command, JsonObject params) throws IOException, InterruptedException {
+        JsonObject body = new JsonObject();
+        body.addProperty("cmd", command);
+        body.add("params", params);
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(endpoint))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build(), HttpResponse.BodyHandlers.ofString());
+        JsonElement value = new JsonParser().parse(response.body()).getAsJsonObject().get("value");
+        if (response.statusCode() != 200 || value == null || !value.isJsonObject() || value.getAsJsonObject().has("error")) {
+            throw new IOException(command + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        return value.getAsJsonObject();
+    }
+
+    private static byte[] captureByStitching(WebDriver driver) {
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        List<?> metrics = (List<?>) js.executeScript(PAGE_METRICS);
+        long pageHeight = ((Number) metrics.get(0)).longValue();
+        long viewportHeight = Math.max(1, ((Number) metrics.get(1)).longValue());
+        long windowHeight = Math.max(1, ((Number) metrics.get(2)).longValue());
+        long originalY = ((Number) metrics.get(3)).longValue();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PngStreamWriter png = null;
+        try {
+            long requestedY = 0;
+            long previousY = -1;
+            double pixelRatio = 1;
+            while (true) {
+                long y = ((Number) js.executeAsyncScript(SCROLL_AND_SETTLE, requestedY)).longValue();
+                if (y <= previousY) {
+                    break;
+                }
+                BufferedImage viewport = ImageIO.read(new ByteArrayInputStream(((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES)));
+                if (png == null) {
+                    pixelRatio = (double) viewport.getHeight() / windowHeight;
+                    png = new PngStreamWriter(bytes, viewport.getWidth(), (int) Math.round(pageHeight * pixelRatio));
+                }
+                int written = (int) Math.round(pageHeight * pixelRatio) - png.getRemainingRows();
+                int top = Math.max(0, written - (int) Math.round(y * pixelRatio));
+                int bottom = Math.min(viewport.getHeight(), (int) Math.round(viewportHeight * pixelRatio));
+                png.writeRows(viewport, top, bottom);
+                if (png.getRemainingRows() == 0 || y + viewportHeight >= pageHeight) {
+                    break;
+                }
+                previousY = y;
+                requestedY = y + viewportHeight;
+            }
+            if (png == null) {
+                throw new TestingBlazeRunTimeException("Page could not be scrolled for a full page screenshot");
+            }
+            png.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to capture full page screenshot: " + e.getMessage());
+        } finally {
+            js.executeScript("window.scrollTo(window.scrollX, arguments[0]);", originalY);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Compares images on their int rasters, tile by tile in parallel on the common fork join pool.
+ * <p>
+ * Two pixels are the same when no colour channel differs by more than the colour distortion (15 by default, like
+ * AShot's ImageDiffer). Pixels covered by only one of the images count as different, ignored regions are skipped.
+ * Counting stops as soon as more pixels differ than the tolerance allows.
+ * <br>
+ * Optionally images whose perceptual hashes are further apart than a given distance are reported different without
+ * a pixel diff.
+ */
+public final class ImageComparator {
+    public static final int DEFAULT_COLOR_DISTORTION = 15;
+    private static final int TILE_SIZE = 256;
+
+    private final int tolerance;
+    private final int colorDistortion;
+    private final List<Rectangle> ignoredRegions;
+    private final int hashPreFilterDistance;
+
+    /**
+     * @param tolerance percentage (0-100) of pixels that may differ
+     */
+    public ImageComparator(int tolerance) {
+        this(tolerance, DEFAULT_COLOR_DISTORTION, Collections.emptyList(), -1);
+    }
+
+    /**
+     * @param tolerance             percentage (0-100) of pixels that may differ
+     * @param colorDistortion       largest difference of a colour channel (0-255) for pixels to be the same
+     * @param ignoredRegions        regions of the expected image that are not compared, e.g. clocks or carousels
+     * @param hashPreFilterDistance images whose dHash distance exceeds this are different without a pixel diff, -1 to
+     *                              always diff
+     */
+    public ImageComparator(int tolerance, int colorDistortion, List<Rectangle> ignoredRegions, int hashPreFilterDistance) {
+        if (tolerance < 0 || tolerance > 100) {
+            throw new IllegalArgumentException("The tolerance for comparing images must be a percentage between 0 and 100.");
+        }
+        this.tolerance = tolerance;
+        this.colorDistortion = colorDistortion;
+        this.ignoredRegions = new ArrayList<>(ignoredRegions);
+        this.hashPreFilterDistance = hashPreFilterDistance;
+    }
+
+    /**
+     * @param expected
+     * @param actual
+     * @return true if at most the tolerated number of pixels differ
+     */
+    public boolean isSame(BufferedImage expected, BufferedImage actual) {
+        if (hashPreFilterDistance >= 0 && ignoredRegions.isEmpty()
+                && PerceptualHash.distance(PerceptualHash.dHash(expected), PerceptualHash.dHash(actual)) > hashPreFilterDistance) {
+            return false;
+        }
+        long allowed = getAllowedDifferentPixels(expected);
+        return countDifferentPixels(expected, actual, allowed) <= allowed;
+    }
+
+    /**
+     * @param expected
+     * @return number of pixels that may differ from the expected image
+     */
+    public long getAllowedDifferentPixels(BufferedImage expected) {
+        return (long) (expected.getHeight() * (long) expected.getWidth() * (tolerance / 100.00));
+    }
+
+    /**
+     * Count different pixels, stopping once the count exceeds a limit.
+     *
+     * @param expected
+     * @param actual
+     * @param limit    counting stops once more pixels than this differ, Long.MAX_VALUE to count all
+     * @return number of different pixels, or a number above the limit
+     */
+    public long countDifferentPixels(BufferedImage expected, BufferedImage actual, long limit) {
+        int width = Math.min(expected.getWidth(), actual.getWidth());
+        int height = Math.min(expected.getHeight(), actual.getHeight());
+        long outsideOverlap = (long) Math.max(expected.getWidth(), actual.getWidth()) * Math.max(expected.getHeight(), actual.getHeight())
+                - (long) width * height;
+        AtomicLong different = new AtomicLong(outsideOverlap);
+        if (outsideOverlap > limit) {
+            return outsideOverlap;
+        }
+        int[] expectedRaster = directRaster(expected);
+        int[] actualRaster = directRaster(actual);
+        int tilesAcross = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesDown = (height + TILE_SIZE - 1) / TILE_SIZE;
+        IntStream.range(0, tilesAcross * tilesDown).parallel().forEach(tile -> {
+            if (different.get() > limit) {
+                return;
+            }
+            Rectangle bounds = new Rectangle((tile % tilesAcross) * TILE_SIZE, (tile / tilesAcross) * TILE_SIZE, TILE_SIZE, TILE_SIZE)
+                    .intersection(new Rectangle(0, 0, width, height));
+            compareTile(expected, expectedRaster, actual, actualRaster, bounds, different, limit);
+        });
+        return different.get();
+    }
+
+    private void compareTile(BufferedImage expected, int[] expectedRaster, BufferedImage actual, int[] actualRaster,
+                             Rectangle bounds, AtomicLong different, long limit) {
+        List<Rectangle> ignoredInTile = new ArrayList<>();
+        for (Rectangle region : ignoredRegions) {
+            if (region.intersects(bounds)) {
+                ignoredInTile.add(region.intersection(bounds));
+            }
+        }
+        int[] expectedTile = expectedRaster != null ? null : expected.getRGB(bounds.x, bounds.y, bounds.width, bounds.height, null, 0, bounds.width);
+        int[] actualTile = actualRaster != null ? null : actual.getRGB(bounds.x, bounds.y, bounds.width, bounds.height, null, 0, bounds.width);
+        for (int y = 0; y < bounds.height; y++) {
+            if (different.get() > limit) {
+                return;
+            }
+            long rowDifferences = 0;
+            for (int x = 0; x < bounds.width; x++) {
+                int expectedPixel = expectedTile != null ? expectedTile[y * bounds.width + x] : expectedRaster[(bounds.y + y) * expected.getWidth() + bounds.x + x];
+                int actualPixel = actualTile != null ? actualTile[y * bounds.width + x] : actualRaster[(bounds.y + y) * actual.getWidth() + bounds.x + x];
+                if (expectedPixel != actualPixel && !isSameColor(expectedPixel, actualPixel) && !isIgnored(ignoredInTile, bounds.x + x, bounds.y + y)) {
+                    rowDifferences++;
+                }
+            }
+            if (rowDifferences > 0 && different.addAndGet(rowDifferences) > limit) {
+                return;
+            }
+        }
+    }
+
+    private boolean isSameColor(int expectedPixel, int actualPixel) {
+        return Math.abs(((expectedPixel >> 16) & 0xFF) - ((actualPixel >> 16) & 0xFF)) <= colorDistortion
+                && Math.abs(((expectedPixel >> 8) & 0xFF) - ((actualPixel >> 8) & 0xFF)) <= colorDistortion
+                && Math.abs((expectedPixel & 0xFF) - (actualPixel & 0xFF)) <= colorDistortion;
+    }
+
+    private static boolean isIgnored(List<Rectangle> ignoredInTile, int x, int y) {
+        for (int i = 0; i < ignoredInTile.size(); i++) {
+            if (ignoredInTile.get(i).contains(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the backing int[] of rgb images without padding, null when pixels have to be converted with getRGB
+     */
+    private static int[] directRaster(BufferedImage image) {
+        if ((image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB)
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                && image.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel
+                && ((SinglePixelPackedSampleModel) image.getRaster().getSampleModel()).getScanlineStride() == image.getWidth()
+                && image.getRaster().getDataBuffer().getNumBanks() == 1
+                && image.getRaster().getDataBuffer().getOffset() == 0
+                && image.getRaster().getSampleModelTranslateX() == 0 && image.getRaster().getSampleModelTranslateY() == 0) {
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+        return null;
+    }
+}
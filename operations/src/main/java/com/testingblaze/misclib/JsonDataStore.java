@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Json test data parsed once per jvm and looked up by JSON pointer (RFC 6901), e.g. "/profile/users/0/name".
+ * <p>
+ * Resources are loaded from the class path. Resources on the file system are re-parsed when their last modified time
+ * changes; files larger than -DjsonMmapThreshold bytes (default 8 MB) are read through a memory mapped buffer.
+ * The cached trees are never handed out: lookups return strings or deep copies.
+ */
+public final class JsonDataStore {
+    private static final long mmapThreshold = System.getProperty("jsonMmapThreshold") != null ? Long.parseLong(System.getProperty("jsonMmapThreshold")) : 8L * 1024 * 1024;
+    private static final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private static final JsonParser jsonParser = new JsonParser();
+
+    private JsonDataStore() {
+    }
+
+    /**
+     * @param resourceName json file on the class path
+     * @param pointer      JSON pointer, "" for the whole document
+     * @return value at the pointer as text; strings are unquoted, objects and arrays are json
+     */
+    public static String getString(String resourceName, String pointer) {
+        JsonElement element = resolve(resourceName, pointer);
+        return element.isJsonPrimitive() ? element.getAsString() : element.toString();
+    }
+
+    /**
+     * @param resourceName json file on the class path
+     * @param pointer      JSON pointer, "" for the whole document
+     * @return copy of the element at the pointer
+     */
+    public static JsonElement getElement(String resourceName, String pointer) {
+        return deepCopy(resolve(resourceName, pointer));
+    }
+
+    /**
+     * @param resourceName json file on the class path
+     * @param pointer      JSON pointer
+     * @return true if the pointer resolves to an element
+     */
+    public static boolean contains(String resourceName, String pointer) {
+        return document(resourceName).lookup(pointer).isPresent();
+    }
+
+    /**
+     * Build a JSON pointer from plain key names or array indexes, escaping '~' and '/'.
+     *
+     * @param tokens
+     * @return JSON pointer
+     */
+    public static String pointerOf(String... tokens) {
+        StringBuilder pointer = new StringBuilder();
+        for (String token : tokens) {
+            pointer.append('/').append(token.replace("~", "~0").replace("/", "~1"));
+        }
+        return pointer.toString();
+    }
+
+    /**
+     * Drop all cached documents, e.g. after test data was regenerated inside a jar.
+     */
+    public static void clear() {
+        documents.clear();
+    }
+
+    static JsonElement resolve(String resourceName, String pointer) {
+        return document(resourceName).lookup(pointer)
+                .orElseThrow(() -> new TestingBlazeRunTimeException("No value at '" + pointer + "' in " + resourceName));
+    }
+
+    private static Document document(String resourceName) {
+        URL url = JsonDataStore.class.getClassLoader().getResource(resourceName);
+        if (url == null) {
+            throw new TestingBlazeRunTimeException("Json resource " + resourceName + " not found on the class path");
+        }
+        Path path = toPath(url);
+        long lastModified = lastModified(path);
+        Document document = documents.get(resourceName);
+        if (document == null || document.lastModified != lastModified) {
+            document = documents.compute(resourceName, (name, current) ->
+                    current != null && current.lastModified == lastModified ? current : new Document(parse(url, path), lastModified));
+        }
+        return document;
+    }
+
+    private static JsonElement parse(URL url, Path path) {
+        try {
+            if (path != null && Files.size(path) > mmapThreshold) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                     Reader reader = new InputStreamReader(new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())), StandardCharsets.UTF_8)) {
+                    return jsonParser.parse(reader);
+                }
+            }
+            try (Reader reader = new InputStreamReader(url.openStream(), StandardCharsets.UTF_8)) {
+                return jsonParser.parse(reader);
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new TestingBlazeRunTimeException("Failed to parse json " + url + ": " + e.getMessage());
+        }
+    }
+
+    private static Path toPath(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return path == null ? -1 : Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static JsonElement deepCopy(JsonElement element) {
+        if (element.isJsonObject()) {
+            JsonObject copy = new JsonObject();
+            element.getAsJsonObject().entrySet().forEach(entry -> copy.add(entry.getKey(), deepCopy(entry.getValue())));
+            return copy;
+        }
+        if (element.isJsonArray()) {
+            JsonArray copy = new JsonArray();
+            element.getAsJsonArray().forEach(item -> copy.add(deepCopy(item)));
+            return copy;
+        }
+        // primitives and null are immutable
+        return element;
+    }
+
+    /**
+     * A parsed document with the pointers resolved so far.
+     */
+    private static final class Document {
+        private final JsonElement root;
+        private final long lastModified;
+        private final Map<String, Optional<JsonElement>> pointerIndex = new ConcurrentHashMap<>();
+
+        private Document(JsonElement root, long lastModified) {
+            this.root = root;
+            this.lastModified = lastModified;
+        }
+
+        private Optional<JsonElement> lookup(String pointer) {
+            return pointerIndex.computeIfAbsent(pointer, this::walk);
+        }
+
+        private Optional<JsonElement> walk(String pointer) {
+            if (pointer.isEmpty()) {
+                return Optional.of(root);
+            }
+            if (!pointer.startsWith("/")) {
+                throw new TestingBlazeRunTimeException("Invalid json pointer '" + pointer + "', it should start with /");
+            }
+            JsonElement current = root;
+            for (String token : pointer.substring(1).split("/", -1)) {
+                token = token.replace("~1", "/").replace("~0", "~");
+                if (current.isJsonObject() && current.getAsJsonObject().has(token)) {
+                    current = current.getAsJsonObject().get(token);
+                } else if (current.isJsonArray() && token.matches("\\d+") && Integer.parseInt(token) < current.getAsJsonArray().size()) {
+                    current = current.getAsJsonArray().get(Integer.parseInt(token));
+                } else {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(current);
+        }
+    }
+
+    /**
+     * Reads a (memory mapped) buffer without copying it to the heap.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.UIDFolder;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Routes messages of one shared test mailbox to the scenarios waiting for them, so parallel scenarios and forks do not
+ * each scan the mailbox.
+ * <p>
+ * A scenario waits for a tag, see {@link #newTag()}, and sends its mails to the plus address of the mailbox with that
+ * tag ({@link #plusAddress(String, String)}) or has them carry the tag in the -DmailCorrelationHeader header (default
+ * X-Correlation-Id). One fork of the run holds a lock file and runs the only poller, on its own imap connection; it
+ * hands messages to waiting threads of its own jvm through in-memory queues and writes the others as .eml files under
+ * target/blaze-mail[-runId]/&lt;mailbox&gt;/&lt;tag&gt;, where the other forks pick them up. When the polling fork
+ * ends, the next waiting fork takes the lock over and continues after the last routed message, recorded in
+ * poller.uid next to poller.lock, so no message is delivered twice.
+ */
+public final class MailboxDispatcher {
+    private static final String correlationHeader = System.getProperty("mailCorrelationHeader") != null ? System.getProperty("mailCorrelationHeader") : "X-Correlation-Id";
+    private static final Pattern PLUS_TAG = Pattern.compile("^[^+@\\s]+\\+([^@\\s]+)@", Pattern.CASE_INSENSITIVE);
+    private static final String[] RECIPIENT_HEADERS = {"Delivered-To", "X-Original-To", "Envelope-To"};
+    private static final long FOLLOWER_POLL_MILLIS = 250;
+    private static final AtomicInteger tagCounter = new AtomicInteger();
+    private static final Map<String, MailboxDispatcher> dispatchers = new ConcurrentHashMap<>();
+
+    private final Properties properties;
+    private final String host;
+    private final String username;
+    private final String password;
+    private final String folderName;
+    private final Path directory;
+    private final Map<String, BlockingQueue<MimeMessage>> waiting = new ConcurrentHashMap<>();
+    private final Session mimeSession = Session.getInstance(new Properties());
+    private volatile boolean polling;
+    private FileChannel lockChannel;
+    private FileLock pollerLock;
+
+    private MailboxDispatcher(Properties properties, String host, String username, String password, String folderName) {
+        this.properties = properties;
+        this.host = host;
+        this.username = username;
+        this.password = password;
+        this.folderName = folderName;
+        String runId = System.getProperty("runId");
+        this.directory = Paths.get(System.getProperty("user.dir"), "target", runId == null ? "blaze-mail" : "blaze-mail-" + runId,
+                (username + "-" + host + "-" + folderName).replaceAll("[^A-Za-z0-9.@_-]", "_"));
+    }
+
+    /**
+     * @param properties java mail properties
+     * @param host       imap server
+     * @param username
+     * @param password
+     * @param folderName e.g. INBOX
+     * @return the dispatcher of the mailbox in this jvm
+     */
+    public static MailboxDispatcher forMailbox(Properties properties, String host, String username, String password, String folderName) {
+        return dispatchers.computeIfAbsent(host + "|" + username + "|" + folderName,
+                key -> new MailboxDispatcher(properties, host, username, password, folderName));
+    }
+
+    /**
+     * @return a tag unique across the forks of a run, usable in a plus address
+     */
+    public static String newTag() {
+        return "blz" + Long.toString(System.currentTimeMillis(), 36) + Long.toString(ProcessHandle.current().pid(), 36)
+                + "x" + Integer.toString(tagCounter.incrementAndGet(), 36);
+    }
+
+    /**
+     * @param address e.g. qa.team@example.com
+     * @param tag
+     * @return e.g. qa.team+tag@example.com
+     */
+    public static String plusAddress(String address, String tag) {
+        int at = address.lastIndexOf('@');
+        if (at < 0) {
+            throw new TestingBlazeRunTimeException("Not an email address: " + address);
+        }
+        return address.substring(0, at) + "+" + tag + address.substring(at);
+    }
+
+    /**
+     * Wait for a message sent to the plus address of a tag or carrying the tag in the correlation header. Each message
+     * is delivered once.
+     *
+     * @param tag     see {@link #newTag()}
+     * @param timeout
+     * @return the message, detached from the mailbox
+     */
+    public MimeMessage await(String tag, Duration timeout) {
+        String key = tag.toLowerCase(Locale.ROOT);
+        BlockingQueue<MimeMessage> queue = waiting.computeIfAbsent(key, k -> new LinkedBlockingQueue<>());
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        try {
+            while (true) {
+                startPollerIfFree();
+                MimeMessage message = takeFile(key);
+                if (message == null) {
+                    message = queue.poll(Math.max(1, Math.min(FOLLOWER_POLL_MILLIS, deadline - System.currentTimeMillis())), TimeUnit.MILLISECONDS);
+                }
+                if (message != null) {
+                    return message;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new TestingBlazeRunTimeException("No message for " + tag + " in " + folderName + " of " + username + " within " + timeout.getSeconds() + " seconds");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TestingBlazeRunTimeException("Interrupted while waiting for a message for " + tag);
+        } finally {
+            // atomic with the hand-off in route: once removed, the poller writes files instead
+            waiting.compute(key, (k, current) -> current == queue ? null : current);
+            // messages that arrived while leaving go to the file channel
+            MimeMessage late;
+            while ((late = queue.poll()) != null) {
+                writeFile(key, late, "late-" + System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * become the poller of the run if no fork is polling
+     */
+    private synchronized void startPollerIfFree() {
+        if (polling) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            if (lockChannel == null) {
+                lockChannel = FileChannel.open(directory.resolve("poller.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            pollerLock = lockChannel.tryLock();
+            if (pollerLock == null) {
+                return;
+            }
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to lock mail poller of " + directory + ": " + e.getMessage());
+        }
+        polling = true;
+        Thread poller = new Thread(this::poll, "blaze-mail-dispatcher");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    private void poll() {
+        MailboxSession session = MailboxSession.openDedicated(properties, host, username, password, folderName);
+        resumeRouting(session);
+        while (true) {
+            try {
+                for (Message message : session.awaitNewMessages(Duration.ofMinutes(5))) {
+                    route(session, message);
+                    recordRouted(((UIDFolder) session.getFolder()).getUIDValidity(), session.getUid(message));
+                }
+            } catch (MessagingException | RuntimeException e) {
+                System.out.println("Mail dispatcher of " + username + " failed, retrying: " + e.getMessage());
+                session.close();
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * continue after the last message a previous poller of the run routed
+     */
+    private void resumeRouting(MailboxSession session) {
+        Path file = directory.resolve("poller.uid");
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            String[] routed = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim().split(" ");
+            session.resumeAfter(Long.parseLong(routed[0]), Long.parseLong(routed[1]));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Failed to read last routed message of " + username + ", syncing the latest messages: " + e.getMessage());
+        }
+    }
+
+    /**
+     * record the last routed message for the next poller, written under the poller lock
+     */
+    private void recordRouted(long uidValidity, long uid) {
+        try {
+            Path temp = Files.createTempFile(directory, "poller.uid", ".tmp");
+            Files.write(temp, (uidValidity + " " + uid).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, directory.resolve("poller.uid"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Failed to record last routed message of " + username + ": " + e.getMessage());
+        }
+    }
+
+    private void route(MailboxSession session, Message message) throws MessagingException {
+        Set<String> tags = tagsOf(message);
+        if (tags.isEmpty()) {
+            return;
+        }
+        MimeMessage copy = new MimeMessage((MimeMessage) message);
+        String name = ((UIDFolder) session.getFolder()).getUIDValidity() + "-" + session.getUid(message);
+        for (String tag : tags) {
+            // offered under the map's lock of the tag, so a waiter leaving meanwhile drains it or the file is written
+            BlockingQueue<MimeMessage> queue = waiting.computeIfPresent(tag, (key, current) -> {
+                current.offer(copy);
+                return current;
+            });
+            if (queue == null) {
+                writeFile(tag, copy, name);
+            }
+        }
+    }
+
+    private static Set<String> tagsOf(Message message) throws MessagingException {
+        Set<String> tags = new LinkedHashSet<>();
+        String[] correlation = message.getHeader(correlationHeader);
+        if (correlation != null) {
+            for (String value : correlation) {
+                tags.add(value.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        Address[] recipients = message.getAllRecipients();
+        if (recipients != null) {
+            for (Address recipient : recipients) {
+                if (recipient instanceof InternetAddress) {
+                    addPlusTag(tags, ((InternetAddress) recipient).getAddress());
+                }
+            }
+        }
+        for (String header : RECIPIENT_HEADERS) {
+            String[] values = message.getHeader(header);
+            if (values != null) {
+                for (String value : values) {
+                    addPlusTag(tags, value.trim().replaceAll("^<|>$", ""));
+                }
+            }
+        }
+        return tags;
+    }
+
+    private static void addPlusTag(Set<String> tags, String address) {
+        if (address != null) {
+            Matcher matcher = PLUS_TAG.matcher(address);
+            if (matcher.find()) {
+                tags.add(matcher.group(1).toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    private void writeFile(String tag, MimeMessage message, String name) {
+        Path tagDirectory = directory.resolve(tag.replaceAll("[^a-z0-9._-]", "_"));
+        try {
+            Files.createDirectories(tagDirectory);
+            Path temp = Files.createTempFile(tagDirectory, name, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                message.writeTo(out);
+            }
+            Files.move(temp, tagDirectory.resolve(name + ".eml"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | MessagingException e) {
+            System.out.println("Failed to hand over message for " + tag + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return a message another fork wrote for the tag, removed so it is delivered once
+     */
+    private MimeMessage takeFile(String tag) {
+        Path tagDirectory = directory.resolve(tag.replaceAll("[^a-z0-9._-]", "_"));
+        if (!Files.isDirectory(tagDirectory)) {
+            return null;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tagDirectory, "*.eml")) {
+            for (Path file : files) {
+                Path claimed = file.resolveSibling(file.getFileName() + "." + ProcessHandle.current().pid() + ".taken");
+                try {
+                    Files.move(file, claimed, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    // taken by another waiter
+                    continue;
+                }
+                try (InputStream in = Files.newInputStream(claimed)) {
+                    return new MimeMessage(mimeSession, in);
+                } finally {
+                    Files.deleteIfExists(claimed);
+                }
+            }
+        } catch (IOException | MessagingException e) {
+            throw new TestingBlazeRunTimeException("Failed to read message for " + tag + ": " + e.getMessage());
+        }
+        return null;
+    }
+}
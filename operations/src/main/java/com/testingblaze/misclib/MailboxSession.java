@@ -0,0 +1,419 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+
+import javax.mail.FetchProfile;
+import javax.mail.Folder;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Store;
+import javax.mail.UIDFolder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * A long lived connection to one mail folder, shared by all callers in the jvm for the same server, user and folder.
+ * <p>
+ * Messages are synced incrementally by uid: the first sync takes the latest -DmailSyncWindow messages (default 100),
+ * later syncs only messages with a higher uid, with envelope, flags and uid fetched in one batch. Waiting for a
+ * message uses imap idle when the server supports it, else a poll every -DmailPollInterval milliseconds (default
+ * 2000). Waiting does not hold the session: one waiter idles on the connection and wakes the others when it ends,
+ * while other callers keep using the folder. The store protocol is mail.store.protocol of the given properties, imaps by default, so a local imap server
+ * such as GreenMail can be used with "imap".
+ */
+public final class MailboxSession {
+    private static final int syncWindow = System.getProperty("mailSyncWindow") != null ? Integer.parseInt(System.getProperty("mailSyncWindow")) : 100;
+    private static final long pollInterval = System.getProperty("mailPollInterval") != null ? Long.parseLong(System.getProperty("mailPollInterval")) : 2000;
+    private static final long MAX_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(25);
+    private static final Map<String, MailboxSession> sessions = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService idleBreaker = createIdleBreaker();
+
+    private final Properties properties;
+    private final String host;
+    private final String username;
+    private final String password;
+    private final String folderName;
+    private final List<Message> messages = new ArrayList<>();
+    private Store store;
+    private Folder folder;
+    private long uidValidity = -1;
+    private long lastUid;
+    private boolean watching;
+
+    private MailboxSession(Properties properties, String host, String username, String password, String folderName) {
+        this.properties = properties;
+        this.host = host;
+        this.username = username;
+        this.password = password;
+        this.folderName = folderName;
+    }
+
+    /**
+     * Get the session for a folder, connecting on first use.
+     *
+     * @param properties java mail properties
+     * @param host       imap server
+     * @param username
+     * @param password
+     * @param folderName e.g. INBOX
+     * @return
+     */
+    public static MailboxSession open(Properties properties, String host, String username, String password, String folderName) {
+        MailboxSession session = sessions.computeIfAbsent(host + "|" + username + "|" + folderName,
+                key -> new MailboxSession(properties, host, username, password, folderName));
+        try {
+            session.getFolder();
+        } catch (MessagingException e) {
+            throw new TestingBlazeRunTimeException("Failed to open mail folder " + folderName + " of " + username + ": " + e.getMessage());
+        }
+        return session;
+    }
+
+    /**
+     * A session of its own, not shared with {@link #open(Properties, String, String, String, String)} callers, e.g.
+     * for a poller that idles most of the time.
+     */
+    static MailboxSession openDedicated(Properties properties, String host, String username, String password, String folderName) {
+        MailboxSession session = new MailboxSession(properties, host, username, password, folderName);
+        sessions.put(host + "|" + username + "|" + folderName + "|" + System.identityHashCode(session), session);
+        return session;
+    }
+
+    /**
+     * Continue after a message synced earlier, e.g. by a poller of another jvm, instead of syncing the latest messages
+     * again. Ignored if the folder's uid validity changed meanwhile.
+     *
+     * @param validity uid validity of the folder
+     * @param uid      last uid already synced
+     */
+    synchronized void resumeAfter(long validity, long uid) {
+        uidValidity = validity;
+        lastUid = uid;
+        messages.clear();
+    }
+
+    /**
+     * close all sessions, called on jvm shutdown
+     */
+    public static void closeAll() {
+        sessions.values().forEach(MailboxSession::close);
+        sessions.clear();
+    }
+
+    /**
+     * @return the open folder, reconnecting if the server dropped the connection
+     * @throws MessagingException
+     */
+    public synchronized Folder getFolder() throws MessagingException {
+        if (store == null || !store.isConnected()) {
+            Properties props = new Properties();
+            props.putAll(properties);
+            store = Session.getInstance(props).getStore(props.getProperty("mail.store.protocol", "imaps"));
+            store.connect(host, username, password);
+            folder = null;
+        }
+        if (folder == null || !folder.isOpen()) {
+            folder = store.getFolder(folderName);
+            folder.open(Folder.READ_WRITE);
+            if (folder instanceof UIDFolder && ((UIDFolder) folder).getUIDValidity() != uidValidity) {
+                uidValidity = ((UIDFolder) folder).getUIDValidity();
+                messages.clear();
+                lastUid = 0;
+            }
+        }
+        return folder;
+    }
+
+    /**
+     * Fetch messages that arrived since the last sync.
+     *
+     * @return the new messages, oldest first
+     * @throws MessagingException
+     */
+    public synchronized List<Message> sync() throws MessagingException {
+        Folder open = getFolder();
+        if (!(open instanceof UIDFolder)) {
+            throw new TestingBlazeRunTimeException("Mail folder " + folderName + " does not support uids");
+        }
+        UIDFolder uids = (UIDFolder) open;
+        Message[] fetched;
+        if (lastUid == 0) {
+            int count = open.getMessageCount();
+            fetched = count == 0 ? new Message[0] : open.getMessages(Math.max(1, count - syncWindow + 1), count);
+        } else {
+            fetched = uids.getMessagesByUID(lastUid + 1, UIDFolder.LASTUID);
+        }
+        fetch(fetched);
+        List<Message> added = new ArrayList<>();
+        for (Message message : fetched) {
+            long uid = uids.getUID(message);
+            // n:* always includes the last message, even if it is older than n
+            if (uid > lastUid) {
+                added.add(message);
+                lastUid = uid;
+            }
+        }
+        messages.addAll(added);
+        return added;
+    }
+
+    /**
+     * @return all synced messages, oldest first
+     */
+    public synchronized List<Message> getMessages() {
+        return new ArrayList<>(messages);
+    }
+
+    /**
+     * @return highest uid synced so far, pass to {@link #awaitMessage(Predicate, long, Duration)} to only wait for
+     * messages arriving later
+     */
+    public synchronized long getLastUid() {
+        return lastUid;
+    }
+
+    /**
+     * @param message
+     * @return uid of a message of this folder
+     * @throws MessagingException
+     */
+    public synchronized long getUid(Message message) throws MessagingException {
+        return ((UIDFolder) getFolder()).getUID(message);
+    }
+
+    /**
+     * Fetch envelope, flags and uid of messages in one round trip.
+     *
+     * @param batch
+     * @throws MessagingException
+     */
+    public synchronized void fetch(Message[] batch) throws MessagingException {
+        if (batch.length == 0) {
+            return;
+        }
+        FetchProfile profile = new FetchProfile();
+        profile.add(FetchProfile.Item.ENVELOPE);
+        profile.add(FetchProfile.Item.FLAGS);
+        profile.add(UIDFolder.FetchProfileItem.UID);
+        getFolder().fetch(batch, profile);
+    }
+
+    /**
+     * Wait for a message, already synced ones included.
+     *
+     * @param predicate e.g. message -> message.getSubject().contains("OTP"), envelope and flags are prefetched
+     * @param timeout
+     * @return the latest matching message
+     * @throws MessagingException
+     */
+    public Message awaitMessage(Predicate<Message> predicate, Duration timeout) throws MessagingException {
+        return awaitMessage(predicate, 0, timeout);
+    }
+
+    /**
+     * Wait for a message with a uid above the given one.
+     *
+     * @param predicate e.g. message -> message.getSubject().contains("OTP"), envelope and flags are prefetched
+     * @param afterUid  see {@link #getLastUid()}
+     * @param timeout
+     * @return the latest matching message
+     * @throws MessagingException
+     */
+    public Message awaitMessage(Predicate<Message> predicate, long afterUid, Duration timeout) throws MessagingException {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        while (true) {
+            synchronized (this) {
+                sync();
+                Message match = latestMatch(predicate, afterUid);
+                if (match != null) {
+                    return match;
+                }
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new TestingBlazeRunTimeException("No message in " + folderName + " matched within " + timeout.getSeconds() + " seconds");
+            }
+            awaitChange(remaining);
+        }
+    }
+
+    /**
+     * Wait until messages arrive.
+     *
+     * @param timeout
+     * @return the new messages, oldest first, empty if none arrived in time
+     * @throws MessagingException
+     */
+    public List<Message> awaitNewMessages(Duration timeout) throws MessagingException {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        long afterUid;
+        synchronized (this) {
+            List<Message> added = sync();
+            if (!added.isEmpty()) {
+                return added;
+            }
+            afterUid = lastUid;
+        }
+        while (deadline - System.currentTimeMillis() > 0) {
+            awaitChange(deadline - System.currentTimeMillis());
+            synchronized (this) {
+                sync();
+                // another caller may have synced them meanwhile
+                List<Message> added = messagesAfter(afterUid);
+                if (!added.isEmpty()) {
+                    return added;
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * close the connection, the next use reconnects
+     */
+    public synchronized void close() {
+        try {
+            if (folder != null && folder.isOpen()) {
+                folder.close(false);
+            }
+            if (store != null) {
+                store.close();
+            }
+        } catch (MessagingException e) {
+            // closing anyway
+        } finally {
+            folder = null;
+            store = null;
+        }
+    }
+
+    private Message latestMatch(Predicate<Message> predicate, long afterUid) throws MessagingException {
+        UIDFolder uids = (UIDFolder) folder;
+        List<Message> candidates = new ArrayList<>(messages);
+        Collections.reverse(candidates);
+        for (Message message : candidates) {
+            if (uids.getUID(message) <= afterUid) {
+                break;
+            }
+            if (predicate.test(message)) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+    private List<Message> messagesAfter(long afterUid) throws MessagingException {
+        UIDFolder uids = (UIDFolder) folder;
+        List<Message> after = new ArrayList<>();
+        for (Message message : messages) {
+            if (uids.getUID(message) > afterUid) {
+                after.add(message);
+            }
+        }
+        return after;
+    }
+
+    /**
+     * Wait for a change without holding the session, callers sync afterwards. One caller waits on the connection, the
+     * others until it is done or the poll interval passed.
+     */
+    private void awaitChange(long remaining) throws MessagingException {
+        Store watchedStore;
+        Folder watchedFolder;
+        synchronized (this) {
+            if (watching) {
+                try {
+                    wait(Math.min(remaining, pollInterval));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TestingBlazeRunTimeException("Interrupted while waiting for a message in " + folderName);
+                }
+                return;
+            }
+            watchedFolder = getFolder();
+            watchedStore = store;
+            watching = true;
+        }
+        try {
+            waitForChange(watchedStore, watchedFolder, remaining);
+        } finally {
+            synchronized (this) {
+                watching = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * idle until the server reports a change or the time is up, or sleep for the poll interval
+     */
+    private void waitForChange(Store store, Folder folder, long remaining) throws MessagingException {
+        if (store instanceof IMAPStore && folder instanceof IMAPFolder && ((IMAPStore) store).hasCapability("IDLE")) {
+            IMAPFolder idleFolder = (IMAPFolder) folder;
+            // any command from another thread ends the idle
+            ScheduledFuture<?> breaker = idleBreaker.schedule(() -> {
+                try {
+                    idleFolder.getMessageCount();
+                } catch (MessagingException e) {
+                    // the idle ends with the connection
+                }
+            }, Math.min(remaining, MAX_IDLE_MILLIS), TimeUnit.MILLISECONDS);
+            try {
+                idleFolder.idle(true);
+            } finally {
+                breaker.cancel(false);
+            }
+        } else {
+            try {
+                Thread.sleep(Math.min(remaining, pollInterval));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TestingBlazeRunTimeException("Interrupted while waiting for a message in " + folderName);
+            }
+            // a noop lets the server report new messages
+            folder.getMessageCount();
+        }
+    }
+
+    private static ScheduledExecutorService createIdleBreaker() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blaze-mail-idle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(MailboxSession::closeAll));
+        return executor;
+    }
+}
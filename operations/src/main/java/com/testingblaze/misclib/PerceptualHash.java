@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * 64 bit perceptual hashes of images. Similar images have hashes with a small hamming distance; the hashes are
+ * insensitive to scaling and compression, so they are used to tell clearly different screenshots apart without a
+ * pixel diff.
+ */
+public final class PerceptualHash {
+    private static final int SAMPLES_PER_BLOCK = 8;
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * Difference hash: brightness gradients between neighbouring blocks of a 9x8 thumbnail.
+     *
+     * @param image
+     * @return hash
+     */
+    public static long dHash(BufferedImage image) {
+        double[] gray = grayscaleThumbnail(image, 9, 8);
+        long hash = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                hash = (hash << 1) | (gray[y * 9 + x] > gray[y * 9 + x + 1] ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * DCT hash: low frequencies of a 32x32 thumbnail compared to their median.
+     *
+     * @param image
+     * @return hash
+     */
+    public static long pHash(BufferedImage image) {
+        int size = 32;
+        double[] gray = grayscaleThumbnail(image, size, size);
+        double[] rows = new double[size * size];
+        // separable 2d dct, only the 8x8 low frequencies are needed
+        for (int y = 0; y < size; y++) {
+            for (int u = 0; u < 8; u++) {
+                double sum = 0;
+                for (int x = 0; x < size; x++) {
+                    sum += gray[y * size + x] * Math.cos((2 * x + 1) * u * Math.PI / (2 * size));
+                }
+                rows[y * size + u] = sum;
+            }
+        }
+        double[] dct = new double[64];
+        for (int u = 0; u < 8; u++) {
+            for (int v = 0; v < 8; v++) {
+                double sum = 0;
+                for (int y = 0; y < size; y++) {
+                    sum += rows[y * size + u] * Math.cos((2 * y + 1) * v * Math.PI / (2 * size));
+                }
+                dct[v * 8 + u] = sum;
+            }
+        }
+        // the dc term says nothing about structure
+        double[] sorted = Arrays.copyOfRange(dct, 1, 64);
+        Arrays.sort(sorted);
+        double median = sorted[sorted.length / 2];
+        long hash = 0;
+        for (int i = 0; i < 64; i++) {
+            hash = (hash << 1) | (i > 0 && dct[i] > median ? 1 : 0);
+        }
+        return hash;
+    }
+
+    /**
+     * @param hash1
+     * @param hash2
+     * @return number of different bits, 0 to 64
+     */
+    public static int distance(long hash1, long hash2) {
+        return Long.bitCount(hash1 ^ hash2);
+    }
+
+    /**
+     * Average luminance of width x height blocks, each sampled on a grid of at most 8x8 points.
+     *
+     * @param image
+     * @param width  thumbnail width
+     * @param height thumbnail height
+     * @return luminance per block, row by row
+     */
+    public static double[] grayscaleThumbnail(BufferedImage image, int width, int height) {
+        double[] gray = new double[width * height];
+        for (int by = 0; by < height; by++) {
+            int top = by * image.getHeight() / height;
+            int bottom = Math.max(top + 1, (by + 1) * image.getHeight() / height);
+            for (int bx = 0; bx < width; bx++) {
+                int left = bx * image.getWidth() / width;
+                int right = Math.max(left + 1, (bx + 1) * image.getWidth() / width);
+                int stepY = Math.max(1, (bottom - top) / SAMPLES_PER_BLOCK);
+                int stepX = Math.max(1, (right - left) / SAMPLES_PER_BLOCK);
+                double sum = 0;
+                int count = 0;
+                for (int y = top; y < bottom; y += stepY) {
+                    for (int x = left; x < right; x += stepX) {
+                        int rgb = image.getRGB(x, y);
+                        sum += 0.299 * ((rgb >> 16) & 0xFF) + 0.587 * ((rgb >> 8) & 0xFF) + 0.114 * (rgb & 0xFF);
+                        count++;
+                    }
+                }
+                gray[by * width + bx] = sum / count;
+            }
+        }
+        return gray;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an rgb png row by row, so an image taller than the memory allows can be encoded strip by strip. Rows use
+ * the sub filter and are deflated at best speed into idat chunks of at most 64kb.
+ */
+final class PngStreamWriter implements AutoCloseable {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final DeflaterOutputStream idat;
+    private final byte[] row;
+    private final int[] pixels;
+    private int rowsWritten;
+
+    /**
+     * @param out    receives the png, not closed
+     * @param width
+     * @param height number of rows that will be written
+     * @throws IOException
+     */
+    PngStreamWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        this.row = new byte[1 + width * 3];
+        this.pixels = new int[width];
+        out.write(SIGNATURE);
+        writeChunk("IHDR", ByteBuffer.allocate(13).putInt(width).putInt(height)
+                .put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0).array(), 13);
+        this.idat = new DeflaterOutputStream(new ChunkOutputStream(), deflater, CHUNK_SIZE);
+    }
+
+    /**
+     * Append rows of an image, pixels right of the png width are cut and missing ones are white.
+     *
+     * @param strip
+     * @param fromRow first row of the strip to append
+     * @param toRow   row after the last one to append
+     * @throws IOException
+     */
+    void writeRows(BufferedImage strip, int fromRow, int toRow) throws IOException {
+        int columns = Math.min(width, strip.getWidth());
+        for (int y = fromRow; y < toRow && rowsWritten < height; y++) {
+            strip.getRGB(0, y, columns, 1, pixels, 0, width);
+            for (int x = columns; x < width; x++) {
+                pixels[x] = 0xFFFFFF;
+            }
+            writeRow();
+        }
+    }
+
+    /**
+     * @return rows still missing
+     */
+    int getRemainingRows() {
+        return height - rowsWritten;
+    }
+
+    /**
+     * Pad the missing rows with white and finish the png.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        Arrays.fill(pixels, 0xFFFFFF);
+        while (rowsWritten < height) {
+            writeRow();
+        }
+        idat.close();
+        deflater.end();
+        writeChunk("IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    private void writeRow() throws IOException {
+        row[0] = 1;
+        int left = 0;
+        for (int x = 0, i = 1; x < width; x++) {
+            int rgb = pixels[x];
+            row[i++] = (byte) ((rgb >> 16) - (left >> 16));
+            row[i++] = (byte) ((rgb >> 8) - (left >> 8));
+            row[i++] = (byte) (rgb - left);
+            left = rgb;
+        }
+        idat.write(row);
+        rowsWritten++;
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.write(ByteBuffer.allocate(4).putInt(length).array());
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    /**
+     * buffers deflated data and writes it as idat chunks
+     */
+    private final class ChunkOutputStream extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(CHUNK_SIZE);
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, CHUNK_SIZE - buffer.size());
+                buffer.write(b, off, n);
+                off += n;
+                len -= n;
+                if (buffer.size() == CHUNK_SIZE) {
+                    flushChunk();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            if (buffer.size() > 0) {
+                writeChunk("IDAT", buffer.toByteArray(), buffer.size());
+                buffer.reset();
+            }
+        }
+    }
+}
@@ -26,10 +26,7 @@ import org.apache.log4j.Logger;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -41,7 +38,6 @@ import java.util.Set;
  */
 
 public final class Properties_Logs {
-    private final Map<String, String> valueStore = new HashMap<>();
     String log4jConfPath = "log4j.properties";
     static final Logger log = Logger.getLogger(TestBlazeLogs.class.getName());
     Properties OR;
@@ -53,16 +49,10 @@ public final class Properties_Logs {
 
 
     /**
-     * Read from property file
+     * Read from property file, see {@link PropertyRegistry} for caching and overrides
      */
     public String ReadPropertyFile(String fileName, String parameter) throws IOException {
-        OR = new Properties();
-        try {
-            OR.load(new InputStreamReader(getClass().getResourceAsStream("/" + fileName), StandardCharsets.UTF_8));
-        } catch (Exception e) {
-            OR.load(new InputStreamReader(getClass().getResourceAsStream("/properties/" + fileName), StandardCharsets.UTF_8));
-        }
-        return OR.getProperty(parameter);
+        return PropertyRegistry.get(fileName, parameter);
     }
 
     /**
@@ -97,7 +87,7 @@ public final class Properties_Logs {
         } catch (Exception e) {
             I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_ERROR, "Properties file is not loaded");
         }
-        OR.entrySet().stream().forEach(set -> valueStore.put((String) set.getKey(), (String) set.getValue()));
+        OR.entrySet().stream().forEach(set -> ValueStore.scenario().put((String) set.getKey(), (String) set.getValue()));
     }
 
     /**
@@ -115,17 +105,36 @@ public final class Properties_Logs {
      * @param value the value to save for future use
      */
     public void saveValue(String key, String value) {
-        valueStore.put(key.toUpperCase().trim(), value);
+        ValueStore.scenario().put(key, value);
+    }
+
+    /**
+     * Saves a value for future use in a wider scope, see {@link ValueStore}
+     *
+     * @param key   the key with which to identify the saved value in the future (case-insensitive)
+     * @param value the value to save for future use
+     * @param scope feature, run or forks
+     */
+    public void saveValue(String key, String value, String scope) {
+        if ("feature".equalsIgnoreCase(scope)) {
+            ValueStore.feature().put(key, value);
+        } else if ("run".equalsIgnoreCase(scope)) {
+            ValueStore.run().put(key, value);
+        } else if ("forks".equalsIgnoreCase(scope)) {
+            ValueStore.forks().put(key, value);
+        } else {
+            ValueStore.scenario().put(key, value);
+        }
     }
 
     /**
-     * Gets a value previously saved in a scenario
+     * Gets a value previously saved in a scenario, or else in the feature, run or forks scope
      *
      * @param key the key which identifies the saved value (case-insensitive)
      * @return the previously saved value
      */
     public String getValue(String key) {
-        return valueStore.get(key.toUpperCase());
+        return ValueStore.lookup(key);
     }
 
     /**
@@ -135,7 +144,7 @@ public final class Properties_Logs {
      * @author nauman.shahid
      */
     public Set<String> getAllSavedKeys() {
-        return valueStore.keySet();
+        return ValueStore.scenario().keys();
     }
 
     /**
@@ -145,7 +154,7 @@ public final class Properties_Logs {
      * @author nauman.shahid
      */
     public Map<String, String> getSavedValuesMap() {
-        return valueStore;
+        return ValueStore.scenario().asMap();
     }
 
     public TestBlazeLogs generateLogs() {
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+import com.testingblaze.register.EnvironmentFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide registry of class path properties files, each loaded once into an immutable map.
+ * <p>
+ * A value is looked up in layers, the first match wins:
+ * <ol>
+ * <li>system property "blaze.&lt;file name without extension&gt;.&lt;key&gt;", e.g. -Dblaze.environment.QA=https://qa.example.com</li>
+ * <li>environment specific file "&lt;name&gt;-&lt;env&gt;.properties", e.g. environment-qa.properties</li>
+ * <li>the file itself</li>
+ * </ol>
+ * Files are searched in the class path root and then in /properties. With -DpropertiesReload=true files on the
+ * file system are reloaded when they change, for editing test data while developing.
+ */
+public final class PropertyRegistry {
+    private static final boolean reload = Boolean.parseBoolean(System.getProperty("propertiesReload"));
+    private static final Map<String, PropertiesFile> files = new ConcurrentHashMap<>();
+
+    private PropertyRegistry() {
+    }
+
+    /**
+     * Look up a key for the environment of the run.
+     *
+     * @param fileName properties file name with extension
+     * @param key
+     * @return value or null if no layer defines the key
+     * @throws TestingBlazeRunTimeException if neither the file nor its environment specific file exists
+     */
+    public static String get(String fileName, String key) {
+        return get(fileName, key, EnvironmentFactory.getEnvironmentName());
+    }
+
+    /**
+     * Look up a key for a given environment, e.g. while the run's environment is not known yet.
+     *
+     * @param fileName        properties file name with extension
+     * @param key
+     * @param environmentName selects the environment specific file, null to skip it
+     * @return value or null if no layer defines the key
+     * @throws TestingBlazeRunTimeException if neither the file nor its environment specific file exists
+     */
+    public static String get(String fileName, String key, String environmentName) {
+        String baseName = fileName.endsWith(".properties") ? fileName.substring(0, fileName.length() - ".properties".length()) : fileName;
+        String value = System.getProperty("blaze." + baseName + "." + key);
+        if (value != null) {
+            return value;
+        }
+        PropertiesFile environmentFile = environmentName == null ? null : load(baseName + "-" + environmentName.toLowerCase() + ".properties");
+        PropertiesFile defaultFile = load(fileName);
+        if (environmentFile == null && defaultFile == null) {
+            throw new TestingBlazeRunTimeException("Properties file " + fileName + " not found in the class path root or /properties");
+        }
+        if (environmentFile != null && environmentFile.values.containsKey(key)) {
+            return environmentFile.values.get(key);
+        }
+        return defaultFile != null ? defaultFile.values.get(key) : null;
+    }
+
+    /**
+     * @param fileName properties file name with extension
+     * @return immutable view of the file, without overrides; empty if the file does not exist
+     */
+    public static Map<String, String> getAll(String fileName) {
+        PropertiesFile file = load(fileName);
+        return file == null ? Collections.emptyMap() : file.values;
+    }
+
+    /**
+     * Forget all loaded files, they are read again on next access.
+     */
+    public static void clear() {
+        files.clear();
+    }
+
+    private static PropertiesFile load(String fileName) {
+        PropertiesFile file = files.get(fileName);
+        if (file != null && (!reload || !file.isModified())) {
+            return file.url == null ? null : file;
+        }
+        file = files.compute(fileName, (name, current) -> current != null && (!reload || !current.isModified()) ? current : read(name));
+        return file.url == null ? null : file;
+    }
+
+    private static PropertiesFile read(String fileName) {
+        URL url = PropertyRegistry.class.getResource("/" + fileName);
+        if (url == null) {
+            url = PropertyRegistry.class.getResource("/properties/" + fileName);
+        }
+        if (url == null) {
+            return new PropertiesFile(null, Collections.emptyMap());
+        }
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(url.openStream(), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to load properties file " + url + ": " + e.getMessage());
+        }
+        Map<String, String> values = new HashMap<>();
+        properties.stringPropertyNames().forEach(key -> values.put(key, properties.getProperty(key)));
+        return new PropertiesFile(url, Collections.unmodifiableMap(values));
+    }
+
+    /**
+     * A loaded file; url is null when the file does not exist.
+     */
+    private static final class PropertiesFile {
+        private final URL url;
+        private final Map<String, String> values;
+        private final long lastModified;
+
+        private PropertiesFile(URL url, Map<String, String> values) {
+            this.url = url;
+            this.values = values;
+            this.lastModified = lastModified(url);
+        }
+
+        private boolean isModified() {
+            return url == null || lastModified != lastModified(url);
+        }
+
+        private static long lastModified(URL url) {
+            if (url == null || !"file".equals(url.getProtocol())) {
+                return -1;
+            }
+            try {
+                return Files.getLastModifiedTime(Paths.get(url.toURI())).toMillis();
+            } catch (IOException | URISyntaxException e) {
+                return -1;
+            }
+        }
+    }
+}
@@ -21,36 +21,26 @@ package com.testingblaze.misclib;
 
 
 import com.testingblaze.controller.DeviceBucket;
+import com.testingblaze.exception.TestingBlazeRunTimeException;
 import com.testingblaze.objects.InstanceRecording;
 import org.apache.commons.io.FileUtils;
-import org.monte.media.Format;
-import org.monte.media.math.Rational;
-import org.monte.screenrecorder.ScreenRecorder;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import ru.yandex.qatools.ashot.AShot;
-import ru.yandex.qatools.ashot.shooting.ShootingStrategies;
 
-import java.awt.*;
+import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.Random;
-
-import static org.monte.media.AudioFormatKeys.EncodingKey;
-import static org.monte.media.AudioFormatKeys.FrameRateKey;
-import static org.monte.media.AudioFormatKeys.KeyFrameIntervalKey;
-import static org.monte.media.AudioFormatKeys.MIME_QUICKTIME;
-import static org.monte.media.AudioFormatKeys.MediaTypeKey;
-import static org.monte.media.AudioFormatKeys.MimeTypeKey;
-import static org.monte.media.VideoFormatKeys.MediaType;
-import static org.monte.media.VideoFormatKeys.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author nauman.shahid
@@ -61,8 +51,8 @@ public final class ScreenCapture {
     private WebDriver driver;
     static Calendar calendar = Calendar.getInstance();
     static SimpleDateFormat formater = new SimpleDateFormat("dd_MM_yyyy_hh_mm_ss");
-    static ScreenRecorder screenRecorder;
-    static Random random = new Random();
+    private static final ThreadLocal<ScreencastRecorder> screenRecorder = new ThreadLocal<>();
+    private static final AtomicInteger recordingCounter = new AtomicInteger();
 
     public ScreenCapture() {
         this.driver = InstanceRecording.getInstance(DeviceBucket.class).getDriver();
@@ -143,50 +133,84 @@ public final class ScreenCapture {
     public File getlementScreenShot(WebElement element) {
         return element.getScreenshotAs(OutputType.FILE);
     }
+
+    /**
+     * get full screen shot as image, decoded in memory without a temp file
+     *
+     * @return
+     * @throws IOException
+     */
+    public BufferedImage getScreenshotImage() throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES)));
+    }
+
+    /**
+     * get screen shot of the specific element as image, decoded in memory without a temp file
+     *
+     * @param element   : Specific element whose screen shot is required
+     * @return
+     * @throws IOException
+     */
+    public BufferedImage getElementScreenshotImage(WebElement element) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(element.getScreenshotAs(OutputType.BYTES)));
+    }
     
     /**
-     * used to record video
+     * used to record video of the current session, see {@link ScreencastRecorder}
      *
      * @throws IOException
-     * @throws AWTException
      * @author nauman.shahid
      */
-    public static void startRecordVideo() throws IOException, AWTException {
-        createRecordingInstance();
-        screenRecorder.start();
+    public static void startRecordVideo() throws IOException {
+        String name = "blaze-bdd-test" + new SimpleDateFormat("dd_MM_yyyy_hh_mm_ss").format(new Date()) + "_" + ProcessHandle.current().pid() + "_" + recordingCounter.incrementAndGet();
+        String target = System.getProperty("user.dir") + File.separator + "target" + File.separator;
+        screenRecorder.set(ScreencastRecorder.start(InstanceRecording.getInstance(DeviceBucket.class).getDriver(),
+                Paths.get(target, "screencast-segments", name + ".frames"),
+                Paths.get(target, "Automation-Report", "test_videos", name + ".avi")));
     }
 
     /**
-     * stop video recording
+     * stop video recording and keep the video
      *
      * @throws IOException
      * @author nauman.shahid
      */
     public static void stopRecordVideo() throws IOException {
-        screenRecorder.stop();
+        stopRecordVideo(true);
     }
 
-    public BufferedImage captureFullScreenShot() {
-        return new AShot().shootingStrategy(ShootingStrategies.viewportPasting(500)).takeScreenshot(driver).getImage();
+    /**
+     * stop video recording
+     *
+     * @param keep true to encode the video, e.g. for failed scenarios, false to discard it
+     * @return the video file, written in the background, or null if discarded or not recording
+     */
+    public static Path stopRecordVideo(boolean keep) {
+        ScreencastRecorder recorder = screenRecorder.get();
+        screenRecorder.remove();
+        return recorder != null ? recorder.stop(keep) : null;
     }
 
-    private static GraphicsConfiguration setUpRecordVideo() {
-        GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
-                .getDefaultConfiguration();
-        return gc;
+    /**
+     * full page screen shot as image, prefer {@link #captureFullPageScreenshot()} for long pages
+     *
+     * @return
+     */
+    public BufferedImage captureFullScreenShot() {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(captureFullPageScreenshot()));
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to decode full page screenshot: " + e.getMessage());
+        }
     }
 
-    private static void createRecordingInstance() throws IOException, AWTException {
-        String timeStamp = formater.format(calendar.getTime()) + "_" + random.nextInt(10000) + random.nextInt(10);
-        screenRecorder = new ScreenRecorder(setUpRecordVideo(), null,
-                new Format(MediaTypeKey, MediaType.FILE, MimeTypeKey, MIME_QUICKTIME),
-                new Format(MediaTypeKey, MediaType.VIDEO, EncodingKey, ENCODING_QUICKTIME_JPEG,
-                        CompressorNameKey, ENCODING_QUICKTIME_JPEG, DepthKey, 24, FrameRateKey, Rational.valueOf(15),
-                        QualityKey, 0.5f, KeyFrameIntervalKey, 15 * 60),
-                new Format(MediaTypeKey, MediaType.VIDEO, EncodingKey, "black", FrameRateKey,
-                        Rational.valueOf(30)),
-                null, new File(System.getProperty("user.dir") + "/target/Automation-Report/test_videos/blaze-bdd-test" + timeStamp
-                + ".avi"));
+    /**
+     * full page screen shot as png, see {@link FullPageCapture}
+     *
+     * @return
+     */
+    public byte[] captureFullPageScreenshot() {
+        return FullPageCapture.capturePng(driver);
     }
 
 }
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import org.monte.media.Format;
+import org.monte.media.avi.AVIWriter;
+import org.monte.media.math.Rational;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.UnhandledAlertException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.monte.media.VideoFormatKeys.DepthKey;
+import static org.monte.media.VideoFormatKeys.ENCODING_AVI_MJPG;
+import static org.monte.media.VideoFormatKeys.EncodingKey;
+import static org.monte.media.VideoFormatKeys.FrameRateKey;
+import static org.monte.media.VideoFormatKeys.HeightKey;
+import static org.monte.media.VideoFormatKeys.MediaType;
+import static org.monte.media.VideoFormatKeys.MediaTypeKey;
+import static org.monte.media.VideoFormatKeys.QualityKey;
+import static org.monte.media.VideoFormatKeys.WidthKey;
+
+/**
+ * Records one browser session from its screenshots, so it needs no display and works headless and in parallel forks.
+ * <p>
+ * A background thread probes the page with a small script (url, scroll position, window size and a counter of dom
+ * mutations and input events). Only when the page changed a screenshot is taken, at most every -DvideoMinInterval
+ * milliseconds (default 200); while the page is idle the probe backs off to every -DvideoMaxInterval milliseconds
+ * (default 1000). Pages that cannot run scripts are sampled at the same rates and identical frames are dropped.
+ * <br>
+ * While an alert is open no screenshot is taken and the probe only checks every -DvideoMaxInterval milliseconds.
+ * Browsers are started with unhandledPromptBehavior "ignore" when recording, see CapabilitiesManager, so the probe never
+ * dismisses an alert the test is about to handle.
+ * <br>
+ * Frames are appended as png to a segment file. Only a kept recording is encoded, as motion jpeg avi on a background
+ * thread keeping the real time between frames; a discarded recording just deletes its segment.
+ */
+public final class ScreencastRecorder {
+    private static final long minInterval = System.getProperty("videoMinInterval") != null ? Long.parseLong(System.getProperty("videoMinInterval")) : 200;
+    private static final long maxInterval = System.getProperty("videoMaxInterval") != null ? Long.parseLong(System.getProperty("videoMaxInterval")) : 1000;
+    private static final int FRAMES_PER_SECOND = 10;
+    private static final String PROBE = "var s = window.__blazeScreencast;"
+            + "if (!s) {"
+            + " s = window.__blazeScreencast = {changes: 0};"
+            + " var bump = function () { s.changes++; };"
+            + " new MutationObserver(bump).observe(document, {subtree: true, childList: true, attributes: true, characterData: true});"
+            + " ['input', 'change', 'focusin', 'scroll'].forEach(function (e) { document.addEventListener(e, bump, true); });"
+            + "}"
+            + "return [location.href, s.changes, window.scrollX, window.scrollY, window.innerWidth, window.innerHeight].join('|');";
+    private static final ExecutorService encoder = createEncoder();
+
+    private final WebDriver driver;
+    private final Path segment;
+    private final Path video;
+    private final ScheduledExecutorService sampler;
+    private final DataOutputStream out;
+    private String lastProbe;
+    private byte[] lastFrame;
+    private long interval = minInterval;
+    private volatile boolean scriptable = true;
+
+    private ScreencastRecorder(WebDriver driver, Path segment, Path video) throws IOException {
+        this.driver = driver;
+        this.segment = segment;
+        this.video = video;
+        Files.createDirectories(segment.getParent());
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(segment)));
+        this.sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blaze-screencast-" + segment.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start recording a session.
+     *
+     * @param driver  session to record, must take screenshots
+     * @param segment file the frames are streamed to
+     * @param video   avi file written if the recording is kept
+     * @return
+     * @throws IOException
+     */
+    public static ScreencastRecorder start(WebDriver driver, Path segment, Path video) throws IOException {
+        ScreencastRecorder recorder = new ScreencastRecorder(driver, segment, video);
+        recorder.sampler.execute(recorder::sample);
+        return recorder;
+    }
+
+    /**
+     * Stop recording.
+     *
+     * @param keep true to encode the video, false to discard the frames
+     * @return the video file, written in the background, or null if discarded
+     */
+    public Path stop(boolean keep) {
+        sampler.shutdownNow();
+        try {
+            sampler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            keep = false;
+            System.out.println("Failed to write video frames " + segment + ": " + e.getMessage());
+        }
+        if (!keep) {
+            deleteSegment();
+            return null;
+        }
+        encoder.execute(this::encode);
+        return video;
+    }
+
+    /**
+     * Wait for videos still being encoded, called on jvm shutdown.
+     *
+     * @param timeoutInSeconds
+     */
+    public static void awaitPendingVideos(int timeoutInSeconds) {
+        encoder.shutdown();
+        try {
+            encoder.awaitTermination(timeoutInSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sample() {
+        try {
+            String probe = probe();
+            if (probe == null || !probe.equals(lastProbe)) {
+                byte[] frame = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+                if (lastFrame == null || !Arrays.equals(frame, lastFrame)) {
+                    out.writeLong(System.currentTimeMillis());
+                    out.writeInt(frame.length);
+                    out.write(frame);
+                    lastFrame = frame;
+                    interval = minInterval;
+                } else {
+                    interval = Math.min(maxInterval, interval * 2);
+                }
+                lastProbe = probe;
+            } else {
+                interval = Math.min(maxInterval, interval * 2);
+            }
+        } catch (UnhandledAlertException e) {
+            // leave the alert to the test, send no further command and look again later
+            interval = maxInterval;
+        } catch (WebDriverException e) {
+            // e.g. the page is navigating, try again on the next tick
+            interval = minInterval;
+        } catch (IOException e) {
+            System.out.println("Failed to write video frame " + segment + ": " + e.getMessage());
+            return;
+        }
+        try {
+            sampler.schedule(this::sample, interval, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // stopped while sampling
+        }
+    }
+
+    /**
+     * @return the page state, null if the page cannot run scripts. A driver that does not support scripts, e.g. Appium
+     * in a native context, turns the probe off and frames are compared by their screenshots from then on. Other failures,
+     * e.g. an open alert or a page unloading, are thrown to skip the tick.
+     */
+    private String probe() {
+        if (!scriptable || !(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+        try {
+            Object state = ((JavascriptExecutor) driver).executeScript(PROBE);
+            return state != null ? state.toString() : null;
+        } catch (UnsupportedOperationException | UnsupportedCommandException e) {
+            scriptable = false;
+            return null;
+        }
+    }
+
+    private void encode() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            Files.createDirectories(video.getParent());
+            AVIWriter writer = null;
+            BufferedImage frame = null;
+            long frameTime = 0;
+            int width = 0;
+            int height = 0;
+            try {
+                while (true) {
+                    long time;
+                    byte[] png;
+                    try {
+                        time = in.readLong();
+                        png = new byte[in.readInt()];
+                        in.readFully(png);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    BufferedImage next = ImageIO.read(new ByteArrayInputStream(png));
+                    if (next == null) {
+                        continue;
+                    }
+                    if (writer == null) {
+                        width = next.getWidth();
+                        height = next.getHeight();
+                        writer = new AVIWriter(video.toFile());
+                        writer.addTrack(new Format(MediaTypeKey, MediaType.VIDEO, EncodingKey, ENCODING_AVI_MJPG,
+                                FrameRateKey, new Rational(FRAMES_PER_SECOND, 1), WidthKey, width, HeightKey, height,
+                                DepthKey, 24, QualityKey, 0.5f));
+                    } else {
+                        writer.write(0, frame, Math.max(1, (time - frameTime) * FRAMES_PER_SECOND / 1000));
+                    }
+                    frame = toRgb(next, width, height);
+                    frameTime = time;
+                }
+                if (writer != null) {
+                    writer.write(0, frame, FRAMES_PER_SECOND);
+                }
+            } finally {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Failed to encode video " + video + ": " + e.getMessage());
+        } finally {
+            deleteSegment();
+        }
+    }
+
+    /**
+     * frames of the video share the size of the first frame and have no alpha channel
+     */
+    private static BufferedImage toRgb(BufferedImage image, int width, int height) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB && image.getWidth() == width && image.getHeight() == height) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+
+    private void deleteSegment() {
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException e) {
+            // left over segments are removed with target
+        }
+    }
+
+    private static ExecutorService createEncoder() {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blaze-video-encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> awaitPendingVideos(300)));
+        return executor;
+    }
+}
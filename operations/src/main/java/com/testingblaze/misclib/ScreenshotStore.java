@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+import io.cucumber.java.Scenario;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Embeds screenshots in the cucumber report.
+ * <p>
+ * By default screenshots are embedded as png bytes. With -DscreenshotStore=true the test thread only hashes the image
+ * and embeds a small html reference; recompression (-DscreenshotFormat jpg or webp when an ImageIO plugin is present,
+ * -DscreenshotQuality 0.0-1.0, -DscreenshotMaxWidth for downscaling) and writing happen on a background pool. Files
+ * are stored once per content hash under target/Automation-Report/screenshots, so identical frames share one file.
+ * The reference is relative to the report page, -DscreenshotReferencePrefix (default "../screenshots/").
+ */
+public final class ScreenshotStore {
+    private static final boolean enabled = "true".equalsIgnoreCase(System.getProperty("screenshotStore"));
+    private static final String format = effectiveFormat(System.getProperty("screenshotFormat") != null ? System.getProperty("screenshotFormat").toLowerCase() : "jpg");
+    private static final float quality = System.getProperty("screenshotQuality") != null ? Float.parseFloat(System.getProperty("screenshotQuality")) : 0.8f;
+    private static final int maxWidth = System.getProperty("screenshotMaxWidth") != null ? Integer.parseInt(System.getProperty("screenshotMaxWidth")) : 0;
+    private static final String referencePrefix = System.getProperty("screenshotReferencePrefix") != null ? System.getProperty("screenshotReferencePrefix") : "../screenshots/";
+    private static final Path directory = Paths.get(System.getProperty("user.dir"), "target", "Automation-Report", "screenshots");
+    private static final Set<String> storedHashes = ConcurrentHashMap.newKeySet();
+    private static final ExecutorService encoder = createEncoder();
+
+    private ScreenshotStore() {
+    }
+
+    /**
+     * Embed a screenshot taken as png bytes.
+     *
+     * @param scenario
+     * @param png
+     * @param name     name of the embedding
+     */
+    public static void embed(Scenario scenario, byte[] png, String name) {
+        if (!enabled) {
+            scenario.embed(png, "image/png", name);
+            return;
+        }
+        String fileName = fileName(sha256(ByteBuffer.wrap(png)));
+        if (storedHashes.add(fileName)) {
+            encoder.execute(() -> write(fileName, () -> decode(png)));
+        }
+        embedReference(scenario, fileName, name);
+    }
+
+    /**
+     * Embed a screenshot taken as image, e.g. a full page screenshot. The image is not png encoded on the test thread
+     * when the store is enabled.
+     *
+     * @param scenario
+     * @param image
+     * @param name     name of the embedding
+     */
+    public static void embed(Scenario scenario, BufferedImage image, String name) {
+        if (!enabled) {
+            scenario.embed(toBytes(image, "png"), "image/png", name);
+            return;
+        }
+        String fileName = fileName(sha256(rasterBytes(image)));
+        if (storedHashes.add(fileName)) {
+            encoder.execute(() -> write(fileName, () -> image));
+        }
+        embedReference(scenario, fileName, name);
+    }
+
+    /**
+     * Wait for screenshots still being written, called on jvm shutdown.
+     *
+     * @param timeoutInSeconds
+     */
+    public static void awaitPendingWrites(int timeoutInSeconds) {
+        encoder.shutdown();
+        try {
+            encoder.awaitTermination(timeoutInSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void embedReference(Scenario scenario, String fileName, String name) {
+        String src = referencePrefix + fileName;
+        String html = "<a href=\"" + src + "\" target=\"_blank\"><img src=\"" + src + "\" style=\"max-width:100%\" alt=\"" + name.replace("\"", "&quot;") + "\"></a>";
+        scenario.embed(html.getBytes(StandardCharsets.UTF_8), "text/html", name);
+    }
+
+    private static void write(String fileName, Supplier<BufferedImage> image) {
+        Path file = directory.resolve(fileName);
+        try {
+            if (Files.exists(file)) {
+                return;
+            }
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, fileName, ".tmp");
+            Files.write(tmp, toBytes(scale(image.get()), format));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            storedHashes.remove(fileName);
+            System.out.println("Failed to store screenshot " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static BufferedImage decode(byte[] png) {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(png));
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to decode screenshot: " + e.getMessage());
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image) {
+        boolean opaqueFormat = !"png".equals(format);
+        if ((maxWidth <= 0 || image.getWidth() <= maxWidth) && !(opaqueFormat && image.getColorModel().hasAlpha())) {
+            return image;
+        }
+        int width = maxWidth > 0 ? Math.min(maxWidth, image.getWidth()) : image.getWidth();
+        int height = (int) Math.max(1, Math.round((double) image.getHeight() * width / image.getWidth()));
+        BufferedImage scaled = new BufferedImage(width, height, opaqueFormat ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] toBytes(BufferedImage image, String imageFormat) {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(imageFormat);
+        if (!writers.hasNext()) {
+            throw new TestingBlazeRunTimeException("No image writer for " + imageFormat);
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!"png".equals(imageFormat) && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionType() == null && param.getCompressionTypes() != null) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to encode screenshot as " + imageFormat + ": " + e.getMessage());
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ByteBuffer rasterBytes(BufferedImage image) {
+        DataBuffer data = image.getRaster().getDataBuffer();
+        if (data instanceof DataBufferInt) {
+            int[] pixels = ((DataBufferInt) data).getData();
+            ByteBuffer buffer = ByteBuffer.allocate(pixels.length * 4 + 8);
+            buffer.putInt(image.getWidth()).putInt(image.getHeight()).asIntBuffer().put(pixels);
+            buffer.rewind();
+            return buffer;
+        }
+        if (data instanceof DataBufferByte) {
+            byte[] pixels = ((DataBufferByte) data).getData();
+            return (ByteBuffer) ByteBuffer.allocate(pixels.length + 8).putInt(image.getWidth()).putInt(image.getHeight()).put(pixels).flip();
+        }
+        return ByteBuffer.wrap(toBytes(image, "png"));
+    }
+
+    private static String sha256(ByteBuffer bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(bytes);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new TestingBlazeRunTimeException("SHA-256 is not available: " + e.getMessage());
+        }
+    }
+
+    private static String fileName(String hash) {
+        return hash + "." + format;
+    }
+
+    /**
+     * the requested format if an ImageIO writer exists for it (webp needs a plugin), else jpg
+     */
+    private static String effectiveFormat(String requested) {
+        return ImageIO.getImageWritersByFormatName(requested).hasNext() ? requested : "jpg";
+    }
+
+    private static ExecutorService createEncoder() {
+        int threads = System.getProperty("screenshotEncoderThreads") != null ? Integer.parseInt(System.getProperty("screenshotEncoderThreads")) : 2;
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "blaze-screenshot-encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> awaitPendingWrites(60)));
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Values saved during test execution, in four scopes:
+ * <ul>
+ *     <li>scenario: cleared when the next scenario starts on the same thread. Values saved before the scenario starts,
+ *     e.g. loaded from a properties file in a hook, are kept for it. Work handed to other threads sees the scenario
+ *     through {@link #bindScenario(Supplier)}</li>
+ *     <li>feature: shared by the scenarios of a feature file</li>
+ *     <li>run: shared by all scenarios of this jvm</li>
+ *     <li>forks: shared by all jvms (forks) of a run through a memory mapped file in target, e.g. auth tokens or ids of
+ *     created entities that should be set up once per run</li>
+ * </ul>
+ * Keys are case insensitive and trimmed; up to 4096 distinct keys are normalized once and cached.
+ * <br>
+ * The forks file is target/blaze-values[-runId].dat, limited to -DforkValueStoreSize bytes (default 1 MB). Pass a unique
+ * -DrunId, or clean target between runs, so values are not reused from a previous run.
+ */
+public final class ValueStore {
+    private static final int NORMALIZED_KEYS_LIMIT = 4096;
+    private static final Map<String, String> normalizedKeys = new ConcurrentHashMap<>();
+    private static final ThreadLocal<ScenarioScope> currentScenario = ThreadLocal.withInitial(() -> new ScenarioScope(new ValueStore(), null, false));
+    private static final Map<String, ValueStore> featureStores = new ConcurrentHashMap<>();
+    private static final ValueStore runStore = new ValueStore();
+    private static volatile ValueStore forksStore;
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final MappedValueFile mappedFile;
+
+    private ValueStore() {
+        this(null);
+    }
+
+    private ValueStore(MappedValueFile mappedFile) {
+        this.mappedFile = mappedFile;
+    }
+
+    /**
+     * Start a new scenario scope on the current thread. Values saved since the previous scenario ended are kept.
+     *
+     * @param featureUri uri of the feature file of the scenario
+     */
+    public static void startScenario(String featureUri) {
+        ScenarioScope previous = currentScenario.get();
+        currentScenario.set(new ScenarioScope(previous.started ? new ValueStore() : previous.store, featureUri, true));
+    }
+
+    /**
+     * End the scenario scope of the current thread, values saved from now on are kept for the next scenario.
+     */
+    public static void endScenario() {
+        currentScenario.remove();
+    }
+
+    /**
+     * Bind work to the scenario of the calling thread, so it sees the scenario's values when run on another thread.
+     *
+     * @param task work to run on another thread
+     * @return the task, running within the scenario of the calling thread
+     */
+    public static <T> Supplier<T> bindScenario(Supplier<T> task) {
+        ScenarioScope scope = currentScenario.get();
+        return () -> {
+            ScenarioScope previous = currentScenario.get();
+            currentScenario.set(scope);
+            try {
+                return task.get();
+            } finally {
+                currentScenario.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Bind work to the scenario of the calling thread, e.g. the action of a parallel stream.
+     *
+     * @param action work to run on other threads
+     * @return the action, running within the scenario of the calling thread
+     */
+    public static IntConsumer bindScenario(IntConsumer action) {
+        ScenarioScope scope = currentScenario.get();
+        return value -> {
+            ScenarioScope previous = currentScenario.get();
+            if (previous == scope) {
+                action.accept(value);
+                return;
+            }
+            currentScenario.set(scope);
+            try {
+                action.accept(value);
+            } finally {
+                currentScenario.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @return values of the running scenario
+     */
+    public static ValueStore scenario() {
+        return currentScenario.get().store;
+    }
+
+    /**
+     * @return values of the feature of the running scenario
+     */
+    public static ValueStore feature() {
+        String featureUri = currentScenario.get().featureUri;
+        return featureStores.computeIfAbsent(featureUri == null ? "" : featureUri, uri -> new ValueStore());
+    }
+
+    /**
+     * @return values of this jvm
+     */
+    public static ValueStore run() {
+        return runStore;
+    }
+
+    /**
+     * @return values shared by all forks of the run
+     */
+    public static ValueStore forks() {
+        if (forksStore == null) {
+            synchronized (ValueStore.class) {
+                if (forksStore == null) {
+                    String runId = System.getProperty("runId");
+                    int size = System.getProperty("forkValueStoreSize") != null ? Integer.parseInt(System.getProperty("forkValueStoreSize")) : 1024 * 1024;
+                    forksStore = new ValueStore(new MappedValueFile(Paths.get(System.getProperty("user.dir"), "target",
+                            runId == null ? "blaze-values.dat" : "blaze-values-" + runId + ".dat"), size));
+                }
+            }
+        }
+        return forksStore;
+    }
+
+    /**
+     * Look a key up from the narrowest scope to the widest: scenario, feature, run and forks (if already in use).
+     *
+     * @param key
+     * @return the value or null
+     */
+    public static String lookup(String key) {
+        String value = scenario().get(key);
+        if (value == null) {
+            value = feature().get(key);
+        }
+        if (value == null) {
+            value = run().get(key);
+        }
+        if (value == null && forksStore != null) {
+            value = forksStore.get(key);
+        }
+        return value;
+    }
+
+    /**
+     * @param key
+     * @return normalized (trimmed, upper case) and interned key
+     */
+    public static String normalize(String key) {
+        String normalized = normalizedKeys.get(key);
+        if (normalized == null) {
+            normalized = key.trim().toUpperCase(Locale.ROOT).intern();
+            // keys built at run time, e.g. with ids, would grow the cache without end
+            if (normalizedKeys.size() < NORMALIZED_KEYS_LIMIT) {
+                normalizedKeys.putIfAbsent(key, normalized);
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * @param key
+     * @return the value or null
+     */
+    public String get(String key) {
+        if (mappedFile != null) {
+            mappedFile.refresh(values);
+        }
+        return values.get(normalize(key));
+    }
+
+    /**
+     * @param key
+     * @param value
+     */
+    public void put(String key, String value) {
+        String normalized = normalize(key);
+        if (mappedFile != null) {
+            mappedFile.append(normalized, value, values);
+        } else if (value == null) {
+            values.remove(normalized);
+        } else {
+            values.put(normalized, value);
+        }
+    }
+
+    /**
+     * @param key
+     */
+    public void remove(String key) {
+        put(key, null);
+    }
+
+    /**
+     * Get a value, computing and saving it first if it does not exist. For the forks scope the value is computed by one
+     * jvm only, the others wait for it.
+     *
+     * @param key
+     * @param supplier computes the value
+     * @return the existing or computed value
+     */
+    public String computeIfAbsent(String key, Supplier<String> supplier) {
+        String normalized = normalize(key);
+        if (mappedFile != null) {
+            return mappedFile.computeIfAbsent(normalized, supplier, values);
+        }
+        return values.computeIfAbsent(normalized, k -> supplier.get());
+    }
+
+    /**
+     * @return normalized keys
+     */
+    public Set<String> keys() {
+        return asMap().keySet();
+    }
+
+    /**
+     * @return live view of the values of an in memory scope, snapshot of the forks scope
+     */
+    public Map<String, String> asMap() {
+        if (mappedFile != null) {
+            mappedFile.refresh(values);
+            return Collections.unmodifiableMap(new HashMap<>(values));
+        }
+        return values;
+    }
+
+    /**
+     * The scenario store of a thread, and whether a scenario was started with it
+     */
+    private static final class ScenarioScope {
+        private final ValueStore store;
+        private final String featureUri;
+        private final boolean started;
+
+        private ScenarioScope(ValueStore store, String featureUri, boolean started) {
+            this.store = store;
+            this.featureUri = featureUri;
+            this.started = started;
+        }
+    }
+
+    /**
+     * Append only record log in a memory mapped file: [int position of the end of the log] then records of
+     * [int key length][key][int value length, -1 for removed][value], all utf-8. Writes and scans of new records are done
+     * under a file lock, and under the monitor of this object within the jvm.
+     */
+    private static final class MappedValueFile {
+        private static final int HEADER_SIZE = 4;
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int readPosition = HEADER_SIZE;
+
+        private MappedValueFile(Path file, int size) {
+            this.file = file;
+            try {
+                Files.createDirectories(file.getParent());
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException e) {
+                throw new TestingBlazeRunTimeException("Failed to map value store " + file + ": " + e.getMessage());
+            }
+        }
+
+        private synchronized void refresh(Map<String, String> values) {
+            try (FileLock ignored = channel.lock(0, HEADER_SIZE, true)) {
+                readNewRecords(values);
+            } catch (IOException e) {
+                throw new TestingBlazeRunTimeException("Failed to read value store " + file + ": " + e.getMessage());
+            }
+        }
+
+        private synchronized void append(String key, String value, Map<String, String> values) {
+            try (FileLock ignored = channel.lock(0, HEADER_SIZE, false)) {
+                readNewRecords(values);
+                writeRecord(key, value, values);
+            } catch (IOException e) {
+                throw new TestingBlazeRunTimeException("Failed to write value store " + file + ": " + e.getMessage());
+            }
+        }
+
+        private synchronized String computeIfAbsent(String key, Supplier<String> supplier, Map<String, String> values) {
+            try (FileLock ignored = channel.lock(0, HEADER_SIZE, false)) {
+                readNewRecords(values);
+                String value = values.get(key);
+                if (value == null) {
+                    value = supplier.get();
+                    writeRecord(key, value, values);
+                }
+                return value;
+            } catch (IOException e) {
+                throw new TestingBlazeRunTimeException("Failed to write value store " + file + ": " + e.getMessage());
+            }
+        }
+
+        private void readNewRecords(Map<String, String> values) {
+            int end = Math.max(buffer.getInt(0), HEADER_SIZE);
+            while (readPosition < end) {
+                String key = readString(readPosition);
+                readPosition += 4 + buffer.getInt(readPosition);
+                String value = buffer.getInt(readPosition) < 0 ? null : readString(readPosition);
+                readPosition += 4 + Math.max(buffer.getInt(readPosition), 0);
+                if (value == null) {
+                    values.remove(key);
+                } else {
+                    values.put(key, value);
+                }
+            }
+        }
+
+        private void writeRecord(String key, String value, Map<String, String> values) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            byte[] valueBytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            int end = readPosition + 8 + keyBytes.length + valueBytes.length;
+            if (end > buffer.capacity()) {
+                throw new TestingBlazeRunTimeException("Value store " + file + " is full, increase -DforkValueStoreSize");
+            }
+            buffer.putInt(readPosition, keyBytes.length);
+            putBytes(readPosition + 4, keyBytes);
+            buffer.putInt(readPosition + 4 + keyBytes.length, value == null ? -1 : valueBytes.length);
+            putBytes(readPosition + 8 + keyBytes.length, valueBytes);
+            buffer.putInt(0, end);
+            readPosition = end;
+            if (value == null) {
+                values.remove(key);
+            } else {
+                values.put(key, value);
+            }
+        }
+
+        private String readString(int position) {
+            byte[] bytes = new byte[buffer.getInt(position)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(position + 4 + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void putBytes(int position, byte[] bytes) {
+            for (int i = 0; i < bytes.length; i++) {
+                buffer.put(position + i, bytes[i]);
+            }
+        }
+    }
+}
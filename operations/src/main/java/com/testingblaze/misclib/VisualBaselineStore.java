@@ -0,0 +1,340 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.misclib;
+
+import com.testingblaze.controller.DeviceBucket;
+import com.testingblaze.exception.TestingBlazeRunTimeException;
+import com.testingblaze.objects.InstanceRecording;
+import com.testingblaze.register.EnvironmentFactory;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriverException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Baseline images for visual assertions with precomputed hashes.
+ * <p>
+ * Baselines are looked up per variant (browser, headless or ui, window size), e.g. chrome-headless-1920x1080/home.png
+ * in the resources, falling back to home.png. For every baseline the sha-256 of its resource, the sha-256 of its
+ * pixels, its dHash and pHash and a 32x32 grayscale thumbnail are computed once and persisted per variant under
+ * target/visual-baselines (-DvisualBaselineIndex), so later runs only hash the resource to know the entry is current.
+ * <br>
+ * A screen whose pixels hash like the baseline's is the same without decoding the baseline. With
+ * -DvisualHashConfirmDistance and -DvisualHashRejectDistance screens whose pHash is at most / more than that many
+ * bits from the baseline's are the same / different without a pixel diff; both are off (-1) by default since a hash
+ * distance does not bound the number of different pixels.
+ */
+public final class VisualBaselineStore {
+    private static final Path indexDirectory = System.getProperty("visualBaselineIndex") != null ? Paths.get(System.getProperty("visualBaselineIndex")) : Paths.get(System.getProperty("user.dir"), "target", "visual-baselines");
+    private static final int confirmDistance = System.getProperty("visualHashConfirmDistance") != null ? Integer.parseInt(System.getProperty("visualHashConfirmDistance")) : -1;
+    private static final int rejectDistance = System.getProperty("visualHashRejectDistance") != null ? Integer.parseInt(System.getProperty("visualHashRejectDistance")) : -1;
+    private static final int THUMBNAIL_SIZE = 32;
+    private static final Map<String, Baseline> baselines = new ConcurrentHashMap<>();
+    private static final Map<String, Properties> indexes = new ConcurrentHashMap<>();
+
+    private VisualBaselineStore() {
+    }
+
+    /**
+     * Outcome of matching a screen against a baseline by its hashes.
+     */
+    public enum Verdict {
+        SAME, DIFFERENT, UNDECIDED
+    }
+
+    /**
+     * A baseline with its precomputed hashes, the image is decoded only when a pixel diff is needed.
+     */
+    public static final class Baseline {
+        private final String resource;
+        private final String rasterHash;
+        private final long dHash;
+        private final long pHash;
+        private final int width;
+        private final int height;
+        private volatile BufferedImage image;
+
+        private Baseline(String resource, String rasterHash, long dHash, long pHash, int width, int height, BufferedImage image) {
+            this.resource = resource;
+            this.rasterHash = rasterHash;
+            this.dHash = dHash;
+            this.pHash = pHash;
+            this.width = width;
+            this.height = height;
+            this.image = image;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public long getDHash() {
+            return dHash;
+        }
+
+        public long getPHash() {
+            return pHash;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * @param actual screen or element image
+         * @return SAME or DIFFERENT when the hashes decide, else UNDECIDED and a pixel diff is needed
+         */
+        public Verdict match(BufferedImage actual) {
+            if (actual.getWidth() == width && actual.getHeight() == height && rasterHash.equals(rasterHash(actual))) {
+                return Verdict.SAME;
+            }
+            if (confirmDistance < 0 && rejectDistance < 0) {
+                return Verdict.UNDECIDED;
+            }
+            int distance = PerceptualHash.distance(pHash, PerceptualHash.pHash(actual));
+            if (confirmDistance >= 0 && distance <= confirmDistance) {
+                return Verdict.SAME;
+            }
+            if (rejectDistance >= 0 && distance > rejectDistance) {
+                return Verdict.DIFFERENT;
+            }
+            return Verdict.UNDECIDED;
+        }
+
+        /**
+         * @return the baseline image, decoded from the resources on first use
+         */
+        public BufferedImage getImage() {
+            BufferedImage decoded = image;
+            if (decoded == null) {
+                synchronized (this) {
+                    if (image == null) {
+                        image = decode(readResource(resource));
+                    }
+                    decoded = image;
+                }
+            }
+            return decoded;
+        }
+    }
+
+    /**
+     * @return browser, execution mode and window size of the current driver, e.g. chrome-headless-1920x1080
+     */
+    public static String currentVariant() {
+        String variant = EnvironmentFactory.getDevice().toLowerCase() + "-" + (EnvironmentFactory.isHeadless() ? "headless" : "ui");
+        try {
+            Dimension size = InstanceRecording.getInstance(DeviceBucket.class).getDriver().manage().window().getSize();
+            return variant + "-" + size.getWidth() + "x" + size.getHeight();
+        } catch (WebDriverException | NullPointerException e) {
+            // no window, e.g. native mobile apps
+            return variant;
+        }
+    }
+
+    /**
+     * Baseline for the current variant.
+     *
+     * @param imageName with extension, relative to the resources
+     * @return
+     */
+    public static Baseline get(String imageName) {
+        return get(currentVariant(), imageName);
+    }
+
+    /**
+     * Baseline for a variant, the variant's own image if the resources have one else the shared image.
+     *
+     * @param variant   see {@link #currentVariant()}
+     * @param imageName with extension, relative to the resources
+     * @return
+     */
+    public static Baseline get(String variant, String imageName) {
+        String name = imageName.replace('\\', '/').replaceAll("^/+", "");
+        return baselines.computeIfAbsent(variant + "/" + name, key -> {
+            String resource = VisualBaselineStore.class.getResource("/" + variant + "/" + name) != null ? variant + "/" + name : name;
+            return load(variant, resource);
+        });
+    }
+
+    /**
+     * forget baselines loaded in this jvm, the persisted index is kept
+     */
+    public static void clear() {
+        baselines.clear();
+        indexes.clear();
+    }
+
+    private static Baseline load(String variant, String resource) {
+        byte[] bytes = readResource(resource);
+        String sourceHash = sha256(ByteBuffer.wrap(bytes));
+        Properties index = indexes.computeIfAbsent(variant, VisualBaselineStore::readIndex);
+        synchronized (index) {
+            if (sourceHash.equals(index.getProperty(resource + ".source"))) {
+                return new Baseline(resource, index.getProperty(resource + ".raster"),
+                        Long.parseUnsignedLong(index.getProperty(resource + ".dhash"), 16),
+                        Long.parseUnsignedLong(index.getProperty(resource + ".phash"), 16),
+                        Integer.parseInt(index.getProperty(resource + ".width")),
+                        Integer.parseInt(index.getProperty(resource + ".height")), null);
+            }
+            BufferedImage image = decode(bytes);
+            Baseline baseline = new Baseline(resource, rasterHash(image), PerceptualHash.dHash(image), PerceptualHash.pHash(image),
+                    image.getWidth(), image.getHeight(), image);
+            index.setProperty(resource + ".source", sourceHash);
+            index.setProperty(resource + ".raster", baseline.rasterHash);
+            index.setProperty(resource + ".dhash", Long.toHexString(baseline.dHash));
+            index.setProperty(resource + ".phash", Long.toHexString(baseline.pHash));
+            index.setProperty(resource + ".width", String.valueOf(baseline.width));
+            index.setProperty(resource + ".height", String.valueOf(baseline.height));
+            writeIndex(variant, index);
+            writeThumbnail(variant, resource, image);
+            return baseline;
+        }
+    }
+
+    private static Properties readIndex(String variant) {
+        Properties index = new Properties();
+        Path file = indexDirectory.resolve(variant).resolve("index.properties");
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                index.load(reader);
+            } catch (IOException e) {
+                // a broken index is rebuilt
+                index.clear();
+            }
+        }
+        return index;
+    }
+
+    private static void writeIndex(String variant, Properties index) {
+        Path file = indexDirectory.resolve(variant).resolve("index.properties");
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), "index", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                index.store(writer, "visual baselines for " + variant);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the index only saves work, the comparison does not depend on it
+        }
+    }
+
+    private static void writeThumbnail(String variant, String resource, BufferedImage image) {
+        double[] gray = PerceptualHash.grayscaleThumbnail(image, THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+        BufferedImage thumbnail = new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE, BufferedImage.TYPE_BYTE_GRAY);
+        for (int i = 0; i < gray.length; i++) {
+            thumbnail.getRaster().setSample(i % THUMBNAIL_SIZE, i / THUMBNAIL_SIZE, 0, (int) Math.round(gray[i]));
+        }
+        Path file = indexDirectory.resolve(variant).resolve("thumbnails").resolve(resource.replace('/', '_') + ".png");
+        try {
+            Files.createDirectories(file.getParent());
+            ImageIO.write(thumbnail, "png", file.toFile());
+        } catch (IOException e) {
+            // thumbnails are for reviewing baselines only
+        }
+    }
+
+    private static byte[] readResource(String resource) {
+        try (InputStream is = VisualBaselineStore.class.getResourceAsStream("/" + resource)) {
+            if (is == null) {
+                throw new TestingBlazeRunTimeException("Baseline image " + resource + " not found in resources");
+            }
+            return is.readAllBytes();
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to read baseline image " + resource + ": " + e.getMessage());
+        }
+    }
+
+    private static BufferedImage decode(byte[] bytes) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+            if (image == null) {
+                throw new TestingBlazeRunTimeException("Baseline is not a readable image");
+            }
+            return image;
+        } catch (IOException e) {
+            throw new TestingBlazeRunTimeException("Failed to decode baseline image: " + e.getMessage());
+        }
+    }
+
+    /**
+     * sha-256 of the size and the rgb of every pixel, alpha ignored so png with and without alpha channel hash alike
+     */
+    private static String rasterHash(BufferedImage image) {
+        int width = image.getWidth();
+        ByteBuffer buffer = ByteBuffer.allocate(width * 4);
+        int[] row = new int[width];
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(ByteBuffer.allocate(8).putInt(width).putInt(image.getHeight()).array());
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                buffer.clear();
+                for (int rgb : row) {
+                    buffer.putInt(rgb & 0xFFFFFF);
+                }
+                buffer.flip();
+                digest.update(buffer);
+            }
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new TestingBlazeRunTimeException("SHA-256 is not available: " + e.getMessage());
+        }
+    }
+
+    private static String sha256(ByteBuffer bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(bytes);
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new TestingBlazeRunTimeException("SHA-256 is not available: " + e.getMessage());
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
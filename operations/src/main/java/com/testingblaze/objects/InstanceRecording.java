@@ -20,20 +20,31 @@
 package com.testingblaze.objects;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public final class InstanceRecording {
-    private static Map<Class<?>, Object> instanceRecorder = new HashMap<>();
+    private static Map<Class<?>, Object> instanceRecorder = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Supplier<?>> providers = new HashMap<>();
+    private static final Set<Class<?>> underConstruction = new LinkedHashSet<>();
 
     /**
-     * The instance management is based on Singleton Approach
+     * The instance management is based on Singleton Approach. An instance with a recorded provider is created on
+     * first use, together with the instances its constructor asks for.
      *
      * @param type ClassName.class
      * @return
      */
     public static <T> T getInstance(Class<T> type) {
-        return type.cast(instanceRecorder.get(type));
+        Object instance = instanceRecorder.get(type);
+        if (instance == null) {
+            instance = createFromProvider(type);
+        }
+        return type.cast(instance);
     }
 
     /**
@@ -46,11 +57,50 @@ public final class InstanceRecording {
         instanceRecorder.put(Objects.requireNonNull(type), Objects.requireNonNull(object));
     }
 
+    /**
+     * Record how to create an instance, it is created once on the first {@link #getInstance(Class)}
+     *
+     * @param type
+     * @param provider
+     */
+    public static <T> void recordProvider(Class<T> type, Supplier<? extends T> provider) {
+        synchronized (providers) {
+            instanceRecorder.remove(Objects.requireNonNull(type));
+            providers.put(type, Objects.requireNonNull(provider));
+        }
+    }
+
     /**
      * Flush the instance
      */
     public static <T> void flushInstance() {
-        instanceRecorder.clear();
+        synchronized (providers) {
+            instanceRecorder.clear();
+            providers.clear();
+        }
+    }
+
+    /**
+     * create an instance under the providers lock, providers asking for other instances re-enter it
+     */
+    private static Object createFromProvider(Class<?> type) {
+        synchronized (providers) {
+            Object instance = instanceRecorder.get(type);
+            Supplier<?> provider = providers.get(type);
+            if (instance != null || provider == null) {
+                return instance;
+            }
+            if (!underConstruction.add(type)) {
+                throw new IllegalStateException("Circular dependency creating " + type.getSimpleName() + ": " + underConstruction);
+            }
+            try {
+                instance = Objects.requireNonNull(provider.get(), type.getSimpleName() + " provider returned null");
+                instanceRecorder.put(type, instance);
+                return instance;
+            } finally {
+                underConstruction.remove(type);
+            }
+        }
     }
 
 
@@ -21,233 +21,150 @@ package com.testingblaze.register;
 
 import com.testingblaze.controller.DeviceBucket;
 import com.testingblaze.objects.InstanceRecording;
-import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.remote.RemoteWebDriver;
 
-import java.io.IOException;
 import java.text.SimpleDateFormat;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 
 /**
- * Keep track of environment information
+ * Keep track of environment information, read from the run's {@link RunContext}
  *
  * @author nauman.shahid
  */
 public final class EnvironmentFactory {
     SimpleDateFormat formatter = new SimpleDateFormat("MM/dd/yyyy");
-    private static String projectName;
 
     public static String getProjectName() {
-        if (projectName == null) return "";
+        if (RunContext.get().getProjectName() == null) return "";
         else
-            return projectName;
+            return RunContext.get().getProjectName();
     }
 
     public static void setProjectName(String projectName) {
-        EnvironmentFactory.projectName = projectName;
+        RunContext.update(context -> context.projectName(projectName));
     }
 
-    private static String orgName;
-
     public static String getOrgName() {
-        if (orgName == null) return "";
+        if (RunContext.get().getOrgName() == null) return "";
         else
-            return orgName;
+            return RunContext.get().getOrgName();
     }
 
     public static void setOrgName(String orgName) {
-        EnvironmentFactory.orgName = orgName;
+        RunContext.update(context -> context.orgName(orgName));
     }
 
-
-    private static String projectPath;
-
     public static String getProjectPath() {
-        if (projectPath == null) return "";
+        if (RunContext.get().getProjectPath() == null) return "";
         else
-            return projectPath;
+            return RunContext.get().getProjectPath();
     }
 
     public static void setProjectPath(String projectPath) {
-        EnvironmentFactory.projectPath = projectPath;
+        RunContext.update(context -> context.projectPath(projectPath));
     }
 
-
-    private static String environmentUrl;
-
     public static String getEnvironmentUrl() {
-        if (environmentUrl == null) {
-            try {
-                environmentUrl = I.amPerforming().propertiesFileOperationsTo().ReadPropertyFile("environment.properties", EnvironmentFactory.getEnvironmentName());
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        RunContext context = RunContext.get();
+        if (context.getEnvironmentUrl() == null) {
+            String environmentUrl = RunContext.readEnvironmentUrl(context.getEnvironmentName());
+            RunContext.update(builder -> builder.environmentUrl(environmentUrl));
+            return environmentUrl;
         }
-        return environmentUrl;
+        return context.getEnvironmentUrl();
     }
 
-    private static String environmentName;
-
     public static void setEnvironmentName(String envName) {
-        environmentName = envName;
+        String environmentUrl = RunContext.readEnvironmentUrl(envName);
+        RunContext.update(context -> context.environmentName(envName).environmentUrl(environmentUrl));
     }
 
     public static String getEnvironmentName() {
-        if (environmentName == null) {
-            environmentName = System.getProperty("env") != null ? System.getProperty("env").toUpperCase() : "QA";
-        }
-        return environmentName;
+        return RunContext.get().getEnvironmentName();
     }
 
-    private static String appName;
-    private static boolean checkedAppName = false;
-
     public static String getAppName() {
-        if (!checkedAppName) {
-            checkedAppName = true;
-            appName = System.getProperty("appName");
-        }
-        return appName;
+        return RunContext.get().getAppName();
     }
 
-    private static String hub;
-
     public static String getHub() {
-        if (hub == null) {
-            hub = System.getProperty("hub") != null ? System.getProperty("hub") : "local";
-        }
-        return hub;
+        return RunContext.get().getHub();
     }
 
-    private static String device;
-
     public static String getDevice() {
-        if (device == null) {
-            device = System.getProperty("device") != null ? System.getProperty("device") : "chrome";
-        }
-        return device;
+        return RunContext.get().getDevice();
     }
 
-    private static String deviceVersion;
-
     public static String getDeviceVersion() {
-        if (deviceVersion == null) {
-            WebDriver driver = InstanceRecording.getInstance(DeviceBucket.class).getDriver();
-            if (driver instanceof RemoteWebDriver) {
-                deviceVersion = ((RemoteWebDriver) driver).getCapabilities().getVersion();
-            } else {
-                deviceVersion = "Not Available";
-            }
+        if (RunContext.get().getDeviceVersion() == null) {
+            return RunContext.captureDriver(InstanceRecording.getInstance(DeviceBucket.class).getDriver()).getDeviceVersion();
         }
-        return deviceVersion;
+        return RunContext.get().getDeviceVersion();
     }
 
-    private static String browserVersion;
-
     public static String getBrowserVersion() {
-        if (browserVersion == null) {
-            if (System.getProperty("browserVersion") != null) {
-                browserVersion = System.getProperty("browserVersion");
-            } else if ("chrome".equalsIgnoreCase(getDevice()) && !"default".equalsIgnoreCase(getDriverVersion())) {
-                browserVersion = getDriverVersion().substring(0, getDriverVersion().indexOf("."));
-            } else {
-                browserVersion = "default";
-            }
-        }
-        return browserVersion;
+        return RunContext.get().getBrowserVersion();
     }
 
-    private static String driverVersion;
-
     public static String getDriverVersion() {
-        if (driverVersion == null) {
-            if (System.getProperty("driverVersion") != null) {
-                driverVersion = System.getProperty("driverVersion");
-            } else {
-                driverVersion = "default";
-            }
-        }
-        return driverVersion;
+        return RunContext.get().getDriverVersion();
     }
 
-    private static String platformInfo;
-
     public static String getPlatformInfo() {
-        if (platformInfo == null) {
-            WebDriver driver = InstanceRecording.getInstance(DeviceBucket.class).getDriver();
-            if (driver instanceof RemoteWebDriver) {
-                platformInfo = Arrays.toString(((RemoteWebDriver) driver).getCapabilities().getPlatform().getPartOfOsName());
-            } else {
-                platformInfo = "Not Available";
-            }
+        if (RunContext.get().getPlatformInfo() == null) {
+            return RunContext.captureDriver(InstanceRecording.getInstance(DeviceBucket.class).getDriver()).getPlatformInfo();
         }
-        return platformInfo;
+        return RunContext.get().getPlatformInfo();
     }
 
-    private static int maxWaitTime = 0;
-
     public static int getMaxWaitTime() {
-        if (maxWaitTime == 0) {
-            maxWaitTime = System.getProperty("waitTime") != null ? Integer.parseInt(System.getProperty("waitTime")) : 10;
-        }
-        return maxWaitTime;
+        return RunContext.get().getMaxWaitTime();
     }
 
-    private static String executionMode;
-
     public static String getExecutionMode() {
-        if (executionMode == null) {
-            executionMode = "true".equalsIgnoreCase(System.getProperty("headless")) ? "Headless" : "Browser UI";
-        }
-        return executionMode;
+        return RunContext.get().getExecutionMode();
     }
-    private static final Boolean isHeadless = "true".equalsIgnoreCase(System.getProperty("headless"));
+
     public static Boolean isHeadless() {
-        return isHeadless;
+        return RunContext.get().isHeadless();
     }
 
-    private static Integer slowDownExecutionTime;
-
     public static Integer getSlowDownExecutionTime() {
-        if (slowDownExecutionTime == null) {
-            slowDownExecutionTime = System.getProperty("slowDownExecution") != null ? Integer.parseInt(System.getProperty("slowDownExecution")) : 0;
-        }
-        return slowDownExecutionTime;
+        return RunContext.get().getSlowDownExecutionTime();
     }
 
-    private static String scenarioTag;
-
     public static String getScenarioTag() {
-        if (scenarioTag == null) {
-            if (System.getProperty("tags") != null) scenarioTag = System.getProperty("tags");
-        }
-        return scenarioTag;
+        return RunContext.get().getScenarioTag();
     }
 
-    private static String reportAnalysisDataPath;
-    private static String reportAnalysisGeneration;
     public static String getReportAnalysisDataPath() {
-        return reportAnalysisDataPath;
+        return RunContext.get().getReportAnalysisDataPath();
     }
+
     public static String getReportAnalysisGenerationPath() {
-        return reportAnalysisGeneration;
+        return RunContext.get().getReportAnalysisGenerationPath();
     }
 
     public static void setReportAnalysisPath(String dataPath,String reportAnalysisGenerationPath) {
-        reportAnalysisDataPath = dataPath;
-        reportAnalysisGeneration = reportAnalysisGenerationPath;
+        RunContext.update(context -> context.reportAnalysisPaths(dataPath, reportAnalysisGenerationPath));
     }
 
+    /**
+     * @deprecated use {@link #getExecutionDate()} and {@link #setExecutionDate(String)}; a value assigned here is
+     * taken over by the next getExecutionDate call
+     */
+    @Deprecated
     public static String executionDate;
+
     public static void setExecutionDate(String exeDate) {
+        RunContext.update(context -> context.executionDate(exeDate));
         executionDate = exeDate;
     }
+
     public static String getExecutionDate() {
-        if (executionDate == null) {
-            executionDate = System.getProperty("setExecutionDate") != null ? System.getProperty("setExecutionDate"): LocalDateTime.now().format(DateTimeFormatter.ofPattern("MM/dd/yyyy"));;
+        String assigned = executionDate;
+        if (assigned != null && !assigned.equals(RunContext.get().getExecutionDate())) {
+            RunContext.update(context -> context.executionDate(assigned));
         }
+        executionDate = RunContext.get().getExecutionDate();
         return executionDate;
     }
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.register;
+
+import com.testingblaze.misclib.ValueStore;
+import io.cucumber.datatable.DataTable;
+
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * A read only view of a data table whose cells are converted on first access and remembered.
+ * <br>
+ * Declare a step parameter of this type instead of {@link DataTable} when a step reads only part of a large table:
+ * <pre>
+ * &#64;When("I check the users :")
+ * public void check(LazyDataTable table) {
+ *   String name = table.cell(1, table.columnIndex("name"));
+ * }
+ * </pre>
+ * Rows, columns and {@link #cells()} are live views; nothing is converted until a cell is read.
+ */
+public final class LazyDataTable {
+    private static final Object NULL_VALUE = new Object();
+
+    private final List<List<String>> raw;
+    private final UnaryOperator<String> converter;
+    private final int width;
+    private final AtomicReferenceArray<Object> converted;
+
+    LazyDataTable(List<List<String>> raw, UnaryOperator<String> converter) {
+        this.raw = raw;
+        this.converter = converter;
+        this.width = raw.isEmpty() ? 0 : raw.get(0).size();
+        this.converted = new AtomicReferenceArray<>(raw.size() * width);
+    }
+
+    /**
+     * @return number of rows, including the header row
+     */
+    public int height() {
+        return raw.size();
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @param row    row index, 0 is the header row
+     * @param column column index
+     * @return converted cell value
+     */
+    public String cell(int row, int column) {
+        int index = row * width + column;
+        Object value = converted.get(index);
+        if (value == null) {
+            String convertedValue = converter.apply(raw.get(row).get(column));
+            value = convertedValue == null ? NULL_VALUE : convertedValue;
+            if (!converted.compareAndSet(index, null, value)) {
+                value = converted.get(index);
+            }
+        }
+        return value == NULL_VALUE ? null : (String) value;
+    }
+
+    /**
+     * @param header converted header cell value
+     * @return index of the column, -1 if there is no such column
+     */
+    public int columnIndex(String header) {
+        for (int column = 0; column < width; column++) {
+            if (header.equals(cell(0, column))) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param row row index, 0 is the header row
+     * @return lazily converted row
+     */
+    public List<String> row(int row) {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int column) {
+                return cell(row, column);
+            }
+
+            @Override
+            public int size() {
+                return width;
+            }
+        };
+    }
+
+    /**
+     * @param column column index
+     * @return lazily converted column, including the header cell
+     */
+    public List<String> column(int column) {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int row) {
+                return cell(row, column);
+            }
+
+            @Override
+            public int size() {
+                return raw.size();
+            }
+        };
+    }
+
+    /**
+     * @return lazily converted rows
+     */
+    public List<List<String>> cells() {
+        return new AbstractList<List<String>>() {
+            @Override
+            public List<String> get(int row) {
+                return row(row);
+            }
+
+            @Override
+            public int size() {
+                return raw.size();
+            }
+        };
+    }
+
+    /**
+     * @param row data row index, 1 is the first row after the header
+     * @return the row mapped by header, converting only this row and the header
+     */
+    public Map<String, String> asMap(int row) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int column = 0; column < width; column++) {
+            map.put(cell(0, column), cell(row, column));
+        }
+        return map;
+    }
+
+    /**
+     * Convert every cell and copy the result to a regular data table.
+     *
+     * @param parallel convert cells on the common fork join pool, for very large tables
+     * @return converted data table
+     */
+    public DataTable toDataTable(boolean parallel) {
+        IntStream indexes = IntStream.range(0, raw.size() * width);
+        IntConsumer convert = index -> cell(index / width, index % width);
+        if (parallel) {
+            // saved values used by placeholders are scenario scoped, the pool threads need the caller's scenario
+            indexes.parallel().forEach(ValueStore.bindScenario(convert));
+        } else {
+            indexes.forEach(convert);
+        }
+        return DataTable.create(cells());
+    }
+}
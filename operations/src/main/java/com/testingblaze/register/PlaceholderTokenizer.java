@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.register;
+
+/**
+ * Expands {Key:Value} and ---Key:-:Value--- placeholders by scanning for their markers, without regular expressions.
+ * <br>
+ * Matching follows the patterns used so far:
+ * <ul>
+ *     <li>{Key:Value}: Key has no ':' or '}', Value has no '}' and neither is empty</li>
+ *     <li>---Key:-:Value---: Key ends at the first ":-:", Value at the next "---", neither spans a line break</li>
+ * </ul>
+ * All {Key:Value} placeholders are expanded before ---Key:-:Value--- ones, so the latter may contain the former.
+ * Strings without markers are returned as they are.
+ */
+public final class PlaceholderTokenizer {
+
+    /**
+     * Resolves a single placeholder.
+     */
+    @FunctionalInterface
+    public interface Resolver {
+        /**
+         * @param placeholder the complete placeholder text
+         * @param key         the Key part
+         * @param value       the Value part
+         * @return the replacement, or null to leave the placeholder unchanged
+         */
+        String resolve(String placeholder, String key, String value);
+    }
+
+    private PlaceholderTokenizer() {
+    }
+
+    /**
+     * @param fromValue the string to expand
+     * @param resolver  resolves each placeholder found
+     * @return the string with all resolvable placeholders replaced
+     */
+    public static String expand(String fromValue, Resolver resolver) {
+        return expandDashPlaceholders(expandBracePlaceholders(fromValue, resolver), resolver);
+    }
+
+    private static String expandBracePlaceholders(String fromValue, Resolver resolver) {
+        int open = fromValue.indexOf('{');
+        if (open < 0) {
+            return fromValue;
+        }
+        StringBuilder sb = null;
+        int last = 0;
+        while (open >= 0) {
+            int end = -1;
+            int separator = indexOfEither(fromValue, ':', '}', open + 1);
+            if (separator > open + 1 && fromValue.charAt(separator) == ':') {
+                int close = fromValue.indexOf('}', separator + 1);
+                if (close > separator + 1) {
+                    end = close + 1;
+                    String replacement = resolver.resolve(fromValue.substring(open, end),
+                            fromValue.substring(open + 1, separator), fromValue.substring(separator + 1, close));
+                    if (sb == null) {
+                        sb = new StringBuilder(fromValue.length() + 16);
+                    }
+                    sb.append(fromValue, last, open).append(replacement != null ? replacement : fromValue.substring(open, end));
+                    last = end;
+                }
+            }
+            open = fromValue.indexOf('{', end > 0 ? end : open + 1);
+        }
+        return sb == null ? fromValue : sb.append(fromValue, last, fromValue.length()).toString();
+    }
+
+    private static String expandDashPlaceholders(String fromValue, Resolver resolver) {
+        int open = fromValue.indexOf("---");
+        if (open < 0) {
+            return fromValue;
+        }
+        StringBuilder sb = null;
+        int last = 0;
+        while (open >= 0) {
+            int end = -1;
+            int separator = fromValue.indexOf(":-:", open + 3);
+            if (separator >= 0 && !hasLineTerminator(fromValue, open + 3, separator)) {
+                int close = fromValue.indexOf("---", separator + 3);
+                if (close >= 0 && !hasLineTerminator(fromValue, separator + 3, close)) {
+                    end = close + 3;
+                    String replacement = resolver.resolve(fromValue.substring(open, end),
+                            fromValue.substring(open + 3, separator), fromValue.substring(separator + 3, close));
+                    if (sb == null) {
+                        sb = new StringBuilder(fromValue.length() + 16);
+                    }
+                    sb.append(fromValue, last, open).append(replacement != null ? replacement : fromValue.substring(open, end));
+                    last = end;
+                }
+            }
+            open = fromValue.indexOf("---", end > 0 ? end : open + 1);
+        }
+        return sb == null ? fromValue : sb.append(fromValue, last, fromValue.length()).toString();
+    }
+
+    private static int indexOfEither(String value, char first, char second, int from) {
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == first || c == second) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasLineTerminator(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
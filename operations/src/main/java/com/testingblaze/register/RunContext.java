@@ -0,0 +1,412 @@
+/*
+ * Copyright 2020
+ *
+ * This file is part of Testing Blaze Automation Solution.
+ *
+ * Testing Blaze Automation Solution is licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.testingblaze.register;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.testingblaze.misclib.PropertyRegistry;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable snapshot of the run: project, environment, device and execution settings.
+ * <p>
+ * The snapshot is built once per jvm from system properties and environment.properties, the environment url being
+ * read while the other values are collected. Device version and platform are added from the first driver's
+ * capabilities. Every change publishes a new snapshot, so all threads see complete values without locking.
+ * <br>
+ * Once the driver attributes are known the snapshot is written to target/Automation-Report/run-context[-runId].json.
+ * With a -DrunId forks of the same run start from that file instead of building their own.
+ */
+public final class RunContext {
+    private static final String NOT_AVAILABLE = "Not Available";
+    private static final Gson gson = new GsonBuilder().serializeNulls().setPrettyPrinting().create();
+    private static final AtomicReference<RunContext> current = new AtomicReference<>();
+
+    private final String projectName;
+    private final String orgName;
+    private final String projectPath;
+    private final String environmentName;
+    private final String environmentUrl;
+    private final String appName;
+    private final String hub;
+    private final String device;
+    private final String driverVersion;
+    private final String browserVersion;
+    private final String deviceVersion;
+    private final String platformInfo;
+    private final int maxWaitTime;
+    private final boolean headless;
+    private final int slowDownExecutionTime;
+    private final String scenarioTag;
+    private final String reportAnalysisDataPath;
+    private final String reportAnalysisGenerationPath;
+    private final String executionDate;
+
+    private RunContext(Builder builder) {
+        this.projectName = builder.projectName;
+        this.orgName = builder.orgName;
+        this.projectPath = builder.projectPath;
+        this.environmentName = builder.environmentName;
+        this.environmentUrl = builder.environmentUrl;
+        this.appName = builder.appName;
+        this.hub = builder.hub;
+        this.device = builder.device;
+        this.driverVersion = builder.driverVersion;
+        this.browserVersion = builder.browserVersion;
+        this.deviceVersion = builder.deviceVersion;
+        this.platformInfo = builder.platformInfo;
+        this.maxWaitTime = builder.maxWaitTime;
+        this.headless = builder.headless;
+        this.slowDownExecutionTime = builder.slowDownExecutionTime;
+        this.scenarioTag = builder.scenarioTag;
+        this.reportAnalysisDataPath = builder.reportAnalysisDataPath;
+        this.reportAnalysisGenerationPath = builder.reportAnalysisGenerationPath;
+        this.executionDate = builder.executionDate;
+    }
+
+    /**
+     * @return the current snapshot, built on first use
+     */
+    public static RunContext get() {
+        RunContext context = current.get();
+        if (context == null) {
+            current.compareAndSet(null, load());
+            context = current.get();
+        }
+        return context;
+    }
+
+    /**
+     * Add device version and platform from the driver's capabilities, once per jvm.
+     *
+     * @param driver
+     * @return the current snapshot
+     */
+    public static RunContext captureDriver(WebDriver driver) {
+        RunContext context = get();
+        if (context.deviceVersion != null) {
+            return context;
+        }
+        String version = NOT_AVAILABLE;
+        String platform = NOT_AVAILABLE;
+        if (driver instanceof RemoteWebDriver) {
+            Capabilities capabilities = ((RemoteWebDriver) driver).getCapabilities();
+            version = capabilities.getVersion() != null ? capabilities.getVersion() : NOT_AVAILABLE;
+            platform = capabilities.getPlatform() != null ? Arrays.toString(capabilities.getPlatform().getPartOfOsName()) : NOT_AVAILABLE;
+        }
+        String capturedVersion = version;
+        String capturedPlatform = platform;
+        RunContext captured = update(builder -> builder.deviceVersion == null ? builder.deviceVersion(capturedVersion).platformInfo(capturedPlatform) : builder);
+        captured.write();
+        return captured;
+    }
+
+    /**
+     * Publish a changed snapshot.
+     *
+     * @param change applied to a copy of the current snapshot, may be applied more than once
+     * @return the new snapshot
+     */
+    static RunContext update(UnaryOperator<Builder> change) {
+        get();
+        return current.updateAndGet(context -> change.apply(context.toBuilder()).build());
+    }
+
+    /**
+     * @return the snapshot as json, e.g. for the report
+     */
+    public JsonObject toJson() {
+        return gson.toJsonTree(this).getAsJsonObject();
+    }
+
+    private static RunContext load() {
+        Path file = file();
+        if (System.getProperty("runId") != null && Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                RunContext written = gson.fromJson(reader, RunContext.class);
+                if (written != null && written.deviceVersion != null) {
+                    return written;
+                }
+            } catch (IOException | RuntimeException e) {
+                // built again below
+            }
+        }
+        return build();
+    }
+
+    private static RunContext build() {
+        String environmentName = System.getProperty("env") != null ? System.getProperty("env").toUpperCase() : "QA";
+        CompletableFuture<String> environmentUrl = CompletableFuture.supplyAsync(() -> readEnvironmentUrl(environmentName));
+        Builder builder = new Builder();
+        builder.environmentName = environmentName;
+        builder.appName = System.getProperty("appName");
+        builder.hub = System.getProperty("hub") != null ? System.getProperty("hub") : "local";
+        builder.device = System.getProperty("device") != null ? System.getProperty("device") : "chrome";
+        builder.driverVersion = System.getProperty("driverVersion") != null ? System.getProperty("driverVersion") : "default";
+        if (System.getProperty("browserVersion") != null) {
+            builder.browserVersion = System.getProperty("browserVersion");
+        } else if ("chrome".equalsIgnoreCase(builder.device) && !"default".equalsIgnoreCase(builder.driverVersion)) {
+            builder.browserVersion = builder.driverVersion.substring(0, builder.driverVersion.indexOf("."));
+        } else {
+            builder.browserVersion = "default";
+        }
+        builder.maxWaitTime = System.getProperty("waitTime") != null ? Integer.parseInt(System.getProperty("waitTime")) : 10;
+        builder.headless = "true".equalsIgnoreCase(System.getProperty("headless"));
+        builder.slowDownExecutionTime = System.getProperty("slowDownExecution") != null ? Integer.parseInt(System.getProperty("slowDownExecution")) : 0;
+        builder.scenarioTag = System.getProperty("tags");
+        builder.executionDate = System.getProperty("setExecutionDate") != null ? System.getProperty("setExecutionDate") : LocalDateTime.now().format(DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+        builder.environmentUrl = environmentUrl.join();
+        return builder.build();
+    }
+
+    /**
+     * Reads with the given environment name only: looking it up would ask for the snapshot being built.
+     *
+     * @return url of the environment, null if environment.properties does not have it
+     */
+    static String readEnvironmentUrl(String environmentName) {
+        try {
+            return PropertyRegistry.get("environment.properties", environmentName, environmentName);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void write() {
+        Path file = file();
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), "run-context", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                gson.toJson(this, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Failed to write run context " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static Path file() {
+        String runId = System.getProperty("runId");
+        return Paths.get(System.getProperty("user.dir"), "target", "Automation-Report", runId == null ? "run-context.json" : "run-context-" + runId + ".json");
+    }
+
+    private Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.projectName = projectName;
+        builder.orgName = orgName;
+        builder.projectPath = projectPath;
+        builder.environmentName = environmentName;
+        builder.environmentUrl = environmentUrl;
+        builder.appName = appName;
+        builder.hub = hub;
+        builder.device = device;
+        builder.driverVersion = driverVersion;
+        builder.browserVersion = browserVersion;
+        builder.deviceVersion = deviceVersion;
+        builder.platformInfo = platformInfo;
+        builder.maxWaitTime = maxWaitTime;
+        builder.headless = headless;
+        builder.slowDownExecutionTime = slowDownExecutionTime;
+        builder.scenarioTag = scenarioTag;
+        builder.reportAnalysisDataPath = reportAnalysisDataPath;
+        builder.reportAnalysisGenerationPath = reportAnalysisGenerationPath;
+        builder.executionDate = executionDate;
+        return builder;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public String getOrgName() {
+        return orgName;
+    }
+
+    public String getProjectPath() {
+        return projectPath;
+    }
+
+    public String getEnvironmentName() {
+        return environmentName;
+    }
+
+    public String getEnvironmentUrl() {
+        return environmentUrl;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public String getHub() {
+        return hub;
+    }
+
+    public String getDevice() {
+        return device;
+    }
+
+    public String getDriverVersion() {
+        return driverVersion;
+    }
+
+    public String getBrowserVersion() {
+        return browserVersion;
+    }
+
+    /**
+     * @return version from the driver's capabilities, null before the first driver was captured
+     */
+    public String getDeviceVersion() {
+        return deviceVersion;
+    }
+
+    /**
+     * @return platform from the driver's capabilities, null before the first driver was captured
+     */
+    public String getPlatformInfo() {
+        return platformInfo;
+    }
+
+    public int getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    public String getExecutionMode() {
+        return headless ? "Headless" : "Browser UI";
+    }
+
+    public int getSlowDownExecutionTime() {
+        return slowDownExecutionTime;
+    }
+
+    public String getScenarioTag() {
+        return scenarioTag;
+    }
+
+    public String getReportAnalysisDataPath() {
+        return reportAnalysisDataPath;
+    }
+
+    public String getReportAnalysisGenerationPath() {
+        return reportAnalysisGenerationPath;
+    }
+
+    public String getExecutionDate() {
+        return executionDate;
+    }
+
+    /**
+     * mutable copy of a snapshot, only used to publish the next one
+     */
+    static final class Builder {
+        private String projectName;
+        private String orgName;
+        private String projectPath;
+        private String environmentName;
+        private String environmentUrl;
+        private String appName;
+        private String hub;
+        private String device;
+        private String driverVersion;
+        private String browserVersion;
+        private String deviceVersion;
+        private String platformInfo;
+        private int maxWaitTime;
+        private boolean headless;
+        private int slowDownExecutionTime;
+        private String scenarioTag;
+        private String reportAnalysisDataPath;
+        private String reportAnalysisGenerationPath;
+        private String executionDate;
+
+        Builder projectName(String projectName) {
+            this.projectName = projectName;
+            return this;
+        }
+
+        Builder orgName(String orgName) {
+            this.orgName = orgName;
+            return this;
+        }
+
+        Builder projectPath(String projectPath) {
+            this.projectPath = projectPath;
+            return this;
+        }
+
+        Builder environmentName(String environmentName) {
+            this.environmentName = environmentName;
+            return this;
+        }
+
+        Builder environmentUrl(String environmentUrl) {
+            this.environmentUrl = environmentUrl;
+            return this;
+        }
+
+        Builder deviceVersion(String deviceVersion) {
+            this.deviceVersion = deviceVersion;
+            return this;
+        }
+
+        Builder platformInfo(String platformInfo) {
+            this.platformInfo = platformInfo;
+            return this;
+        }
+
+        Builder reportAnalysisPaths(String dataPath, String generationPath) {
+            this.reportAnalysisDataPath = dataPath;
+            this.reportAnalysisGenerationPath = generationPath;
+            return this;
+        }
+
+        Builder executionDate(String executionDate) {
+            this.executionDate = executionDate;
+            return this;
+        }
+
+        RunContext build() {
+            return new RunContext(this);
+        }
+    }
+}
@@ -21,6 +21,7 @@ package com.testingblaze.register;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.testingblaze.controller.ScenarioController;
 import com.testingblaze.controller.TestSetupController;
 import com.testingblaze.report.LogLevel;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -44,7 +45,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -63,8 +64,17 @@ import static java.util.Collections.singletonList;
  */
 public final class TypeRegistryConfiguration implements TypeRegistryConfigurer {
 
-    private static final Pattern parameterPattern1 = Pattern.compile("\\{([^:}]+):([^}]+)}");
-    private static final Pattern parameterPattern2 = Pattern.compile("---((?:(?!:-:).)*):-:((?:(?!---).)*)---");
+    /*
+     * Tables with at least this many cells are converted in parallel, 0 (default) disables it
+     */
+    private static final int parallelConversionThreshold = System.getProperty("parallelTableConversion") != null ? Integer.parseInt(System.getProperty("parallelTableConversion")) : 0;
+    /*
+     * Resolved {Key:Value} placeholders of the running scenario, keyed by Key and Value as written.
+     * Saved values and dates are always resolved again as they may change within a scenario.
+     * A new scenario gets new resolutions instead of clearing them, as a table may still be converted in parallel
+     * with the resolutions it started with.
+     */
+    private volatile ScenarioResolutions scenarioResolutions = new ScenarioResolutions(null);
 
 
     /*
@@ -84,10 +94,26 @@ public final class TypeRegistryConfiguration implements TypeRegistryConfigurer {
      */
     @DataTableType
     public DataTable convertDataTable(DataTable table) {
-        return DataTable.create(
-                table.cells().stream().map(
-                        row -> row.stream().map(this::convertString).collect(Collectors.toList())
-                ).collect(Collectors.toList()));
+        ConversionLog conversionLog = new ConversionLog();
+        Map<String, String> resolutions = resolutionsOfScenario();
+        DataTable converted = new LazyDataTable(table.cells(), cell -> convertString(cell, conversionLog, resolutions))
+                .toDataTable(parallelConversionThreshold > 0 && table.height() * table.width() >= parallelConversionThreshold);
+        conversionLog.writeToReport();
+        return converted;
+    }
+
+    /*
+     * Given a step defined by:
+     * @When("I read a few cells of a large table :")
+     * public void convert(LazyDataTable table) {
+     *   // Implementation
+     * }
+     *
+     * Cells are converted like for a DataTable, but only when they are read.
+     */
+    @DataTableType
+    public LazyDataTable convertLazyDataTable(DataTable table) {
+        return new LazyDataTable(table.cells(), this::convertString);
     }
 
     /*
@@ -127,7 +153,11 @@ public final class TypeRegistryConfiguration implements TypeRegistryConfigurer {
      */
     @DataTableType
     public List<String> convertDataTableToListOfString(DataTable table) {
-        return table.asList().stream().map(this::convertString).collect(Collectors.toList());
+        ConversionLog conversionLog = new ConversionLog();
+        Map<String, String> resolutions = resolutionsOfScenario();
+        List<String> converted = table.asList().stream().map(cell -> convertString(cell, conversionLog, resolutions)).collect(Collectors.toList());
+        conversionLog.writeToReport();
+        return converted;
     }
 
     /*
@@ -184,7 +214,7 @@ public final class TypeRegistryConfiguration implements TypeRegistryConfigurer {
     /**
      * Parses a String for values that can be interpolated from various sources.
      * <br>
-     * {@link #convertStringUsingPattern} is called using the following patterns:
+     * {@link #resolvePlaceholder} is called for placeholders in the following formats:
      * <ul>
      *     <li>{Key:Value}</li>
      *     <li>---Key:-:Value---</li>
@@ -194,6 +224,13 @@ public final class TypeRegistryConfiguration implements TypeRegistryConfigurer {
      * @return The input String, with all possible values interpolated.
      */
     private String convertString(String fromValue) {
+        ConversionLog conversionLog = new ConversionLog();
+        String converted = convertString(fromValue, conversionLog, resolutionsOfScenario());
+        conversionLog.writeToReport();
+        return converted;
+    }
+
+    private String convertString(String fromValue, ConversionLog conversionLog, Map<String, String> resolutions) {
         // Do not try to process null inputs
         if (fromValue == null) {
             return "";
@@ -201,16 +238,24 @@ public final class TypeRegistryConfiguration implements TypeRegistryConfigurer {
             return null;
         }
 
-        fromValue = convertStringUsingPattern(fromValue, parameterPattern1);
-        fromValue = convertStringUsingPattern(fromValue, parameterPattern2);
+        return PlaceholderTokenizer.expand(fromValue, (toConvert, parameter1, parameter2) -> resolvePlaceholder(toConvert, parameter1, parameter2, conversionLog, resolutions));
+    }
 
-        return fromValue;
+    /**
+     * @return resolutions of the running scenario, new ones when it changed since the last conversion
+     */
+    private Map<String, String> resolutionsOfScenario() {
+        Object scenario = ScenarioController.getScenario();
+        ScenarioResolutions current = scenarioResolutions;
+        if (current.scenario != scenario) {
+            current = new ScenarioResolutions(scenario);
+            scenarioResolutions = current;
+        }
+        return current.values;
     }
 
     /**
-     * Parses a String for values that can be interpolated.
-     * <br>Uses a passed in pattern to search for values to interpolate.
-     * <br>This pattern must have two ordered capture groups, Key and Value.
+     * Resolves a single placeholder.
      *
      * <br>By default, Key will be interpreted as the name of a file named "Key.properties", and
      * the value interpolated will be the property value in that file with name Value.
@@ -228,74 +273,124 @@ public final class TypeRegistryConfiguration implements TypeRegistryConfigurer {
      *     <li>Date: Use {@link #parseDate(String) parseDate(Value)} to interpolate a date value.  This date is subject to the formatting
      *     conditions detailed in {@link #parseDate(String)}</li>
      * </ul>
+     * Other than saved values and dates, resolved values are reused for the rest of the scenario.
      *
-     * @param fromValue The initial String for which values should be substituted.
-     * @param pattern   The pattern to use to find values to convert. It should have exactly two capture groups
-     * @return A new String, with all valid values substituted.
+     * @param toConvert     The complete placeholder.
+     * @param parameter1    The Key of the placeholder.
+     * @param parameter2    The Value of the placeholder.
+     * @param conversionLog Collects what was converted, to report it in one line.
+     * @param resolutions   Resolved placeholders of the scenario the conversion started in.
+     * @return The interpolated value, or null to leave the placeholder unchanged.
      */
-    private String convertStringUsingPattern(String fromValue, Pattern pattern) {
-        StringBuilder sb = new StringBuilder();
-        Matcher matcher = pattern.matcher(fromValue);
-        int last = 0;
-        while (matcher.find()) {
-            String toConvert = matcher.group(0);
-            String parameter1 = matcher.group(1);
-            String parameter2 = matcher.group(2);
-            String convertedValue = toConvert;
-
-            sb.append(fromValue, last, matcher.start());
-
-            if ("SavedValue".equalsIgnoreCase(parameter1)) {
-                if (I.amPerforming().propertiesFileOperationsTo().getValue(parameter2) != null) {
-                    convertedValue = I.amPerforming().propertiesFileOperationsTo().getValue(parameter2);
-                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, String.format("Converted value '%s' into saved value '%s'", toConvert, convertedValue));
-                } else {
-                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_IMPORTANT, String.format("Failed to find saved value '%s'", parameter2));
-                }
-            } else if ("Username".equalsIgnoreCase(parameter1)) {
-                convertedValue = TestSetupController.usersController.getUserName(parameter2);
-                I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, String.format("Converted value '%s' into username value '%s'", toConvert, convertedValue));
-            } else if ("Password".equalsIgnoreCase(parameter1)) {
-                convertedValue = TestSetupController.usersController.getPassword(parameter2);
-                I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, String.format("Converted value '%s' into password value '%s'", toConvert, convertedValue));
-            } else if ("Email".equalsIgnoreCase(parameter1)) {
-                if (TestSetupController.usersController.getEmail(parameter2) == null) {
-                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, String.format("Failed to find email value '%s'. Check that getEmail(String) is defined in local UsersController file", parameter2));
-                } else {
-                    convertedValue = TestSetupController.usersController.getEmail(parameter2);
-                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, String.format("Converted value '%s' into email value '%s'", toConvert, convertedValue));
-                }
-            } else if ("Date".equalsIgnoreCase(parameter1)) {
-                try {
-                    convertedValue = parseDate(parameter2);
-                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, String.format("Converted value '%s' into date value '%s'", toConvert, convertedValue));
-                } catch (Error e) {
-                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_IMPORTANT, String.format("Failed to convert '%s' into date value because %s", toConvert, e.getMessage()));
-                }
+    private String resolvePlaceholder(String toConvert, String parameter1, String parameter2, ConversionLog conversionLog,
+                                      Map<String, String> resolutions) {
+        boolean cacheable = !"SavedValue".equalsIgnoreCase(parameter1) && !"Date".equalsIgnoreCase(parameter1);
+        // as written: the Key names a properties file, whose name is case sensitive on most file systems
+        String cacheKey = parameter1 + ":" + parameter2;
+        if (cacheable) {
+            String cached = resolutions.get(cacheKey);
+            if (cached != null) {
+                conversionLog.converted(toConvert, "cached value", cached);
+                return cached;
+            }
+        }
+
+        String convertedValue = null;
+        if ("SavedValue".equalsIgnoreCase(parameter1)) {
+            convertedValue = I.amPerforming().propertiesFileOperationsTo().getValue(parameter2);
+            if (convertedValue != null) {
+                conversionLog.converted(toConvert, "saved value", convertedValue);
+            } else {
+                conversionLog.unchanged(toConvert, String.format("failed to find saved value '%s'", parameter2));
+            }
+        } else if ("Username".equalsIgnoreCase(parameter1)) {
+            convertedValue = TestSetupController.usersController.getUserName(parameter2);
+            conversionLog.converted(toConvert, "username value", convertedValue);
+        } else if ("Password".equalsIgnoreCase(parameter1)) {
+            convertedValue = TestSetupController.usersController.getPassword(parameter2);
+            conversionLog.converted(toConvert, "password value", convertedValue);
+        } else if ("Email".equalsIgnoreCase(parameter1)) {
+            convertedValue = TestSetupController.usersController.getEmail(parameter2);
+            if (convertedValue == null) {
+                conversionLog.unchanged(toConvert, String.format("failed to find email value '%s'. Check that getEmail(String) is defined in local UsersController file", parameter2));
             } else {
-                try {
-                    if (I.amPerforming().propertiesFileOperationsTo().ReadPropertyFile(parameter1 + ".properties", parameter2) != null) {
-                        convertedValue = I.amPerforming().propertiesFileOperationsTo().ReadPropertyFile(parameter1 + ".properties", parameter2);
-                        I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_INFO, String.format("Converted value '%s' into property value '%s'", toConvert, convertedValue));
-                    } else {
-                        I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_IMPORTANT, String.format("Failed to read property '%s' from file '%s'", parameter2, parameter1));
-                    }
-                } catch (Exception e) {
-                    I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_IMPORTANT, String.format("Failed to find property file '%s'", parameter1));
+                conversionLog.converted(toConvert, "email value", convertedValue);
+            }
+        } else if ("Date".equalsIgnoreCase(parameter1)) {
+            try {
+                convertedValue = parseDate(parameter2);
+                conversionLog.converted(toConvert, "date value", convertedValue);
+            } catch (Error e) {
+                conversionLog.unchanged(toConvert, String.format("failed to convert into date value because %s", e.getMessage()));
+            }
+        } else {
+            try {
+                convertedValue = I.amPerforming().propertiesFileOperationsTo().ReadPropertyFile(parameter1 + ".properties", parameter2);
+                if (convertedValue != null) {
+                    conversionLog.converted(toConvert, "property value", convertedValue);
+                } else {
+                    conversionLog.unchanged(toConvert, String.format("failed to read property '%s' from file '%s'", parameter2, parameter1));
                 }
+            } catch (Exception e) {
+                conversionLog.unchanged(toConvert, String.format("failed to find property file '%s'", parameter1));
             }
+        }
+
+        if (cacheable && convertedValue != null) {
+            resolutions.put(cacheKey, convertedValue);
+        }
+        return convertedValue;
+    }
 
+    /**
+     * Resolved placeholders of one scenario
+     */
+    private static final class ScenarioResolutions {
+        private final Object scenario;
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+
+        private ScenarioResolutions(Object scenario) {
+            this.scenario = scenario;
+        }
+    }
+
+    /**
+     * Collects the placeholder conversions of a value or table and reports them in a single line.
+     * Thread safe, as tables may be converted in parallel.
+     */
+    private static final class ConversionLog {
+        private final StringBuilder details = new StringBuilder();
+        private int convertedCount;
+        private int unchangedCount;
+
+        private synchronized void converted(String toConvert, String valueType, String convertedValue) {
             if (toConvert.equals(convertedValue)) {
-                I.amPerforming().updatingOfReportWith().write(LogLevel.TEST_BLAZE_IMPORTANT, String.format("'%s' has been left unchanged", toConvert));
+                unchanged(toConvert, "converted into itself");
+                return;
             }
+            convertedCount++;
+            append(String.format("'%s' into %s '%s'", toConvert, valueType, convertedValue));
+        }
 
-            sb.append(convertedValue);
-            last = matcher.end();
+        private synchronized void unchanged(String toConvert, String reason) {
+            unchangedCount++;
+            append(String.format("'%s' left unchanged, %s", toConvert, reason));
         }
 
-        sb.append(fromValue, last, fromValue.length());
+        private void append(String detail) {
+            if (details.length() > 0) {
+                details.append("; ");
+            }
+            details.append(detail);
+        }
 
-        return sb.toString();
+        private synchronized void writeToReport() {
+            if (convertedCount + unchangedCount == 0) {
+                return;
+            }
+            I.amPerforming().updatingOfReportWith().write(unchangedCount > 0 ? LogLevel.TEST_BLAZE_IMPORTANT : LogLevel.TEST_BLAZE_INFO,
+                    String.format("Converted %d of %d values: %s", convertedCount, convertedCount + unchangedCount, details));
+        }
     }
 
     /**
@@ -311,7 +406,7 @@ public final class TypeRegistryConfiguration implements TypeRegistryConfigurer {
      * This method sets up how Gherkins steps are to be parsed by Cucumber.
      * <p>
      * In particular, all String parameters, and all DataTable cells, are parsed by
-     * {@link #convertStringUsingPattern}.
+     * {@link #convertString}.
      * <p>
      * The two patterns that are used by the parser are {Key:Value} and ---Key:-:Value---
      *
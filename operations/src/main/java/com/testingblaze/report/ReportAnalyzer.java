@@ -7,6 +7,7 @@ import com.google.gson.JsonParser;
 import com.testingblaze.http.RestfulWebServices;
 import com.testingblaze.objects.TestStatusDetails;
 import com.testingblaze.register.EnvironmentFactory;
+import com.testingblaze.register.RunContext;
 import io.cucumber.core.gherkin.vintage.internal.gherkin.deps.com.google.gson.Gson;
 import org.apache.commons.lang.StringUtils;
 
@@ -50,6 +51,7 @@ public class ReportAnalyzer {
         Files.write(Paths.get(pathAnalysis + "/analysis.html"), createMainHtmlPage(compileReport()));
         Files.write(Paths.get(pathFiles + "/bugs_details.html"), createBugDetailsHtmlPage(compileReport()));
         Files.write(Paths.get(pathFiles + "/updating_details.html"), createUpdatingDetailsHtmlPage(compileReport()));
+        Files.write(Paths.get(pathFiles + "/run_context.json"), RunContext.get().toJson().toString().getBytes(StandardCharsets.UTF_8));
     }
 
     public void publishReportAnalytics() throws IOException {
@@ -75,9 +77,13 @@ public class ReportAnalyzer {
         getPropertiesAccess().load(new InputStreamReader(getClass().getResourceAsStream("/report_publisher.properties"), StandardCharsets.UTF_8));
         dataSet.addProperty("projectId", getPropertiesAccess().getProperty("projectId"));
         dataSet.addProperty("projectName",getPropertiesAccess().getProperty("projectName"));
-        dataSet.addProperty("date", EnvironmentFactory.getExecutionDate());
+        // takes over a date assigned to the deprecated EnvironmentFactory.executionDate before the snapshot is read
+        String executionDate = EnvironmentFactory.getExecutionDate();
+        RunContext runContext = RunContext.get();
+        dataSet.addProperty("date", executionDate);
         dataSet.addProperty("totalTestsCount",getTotalTestCount());
-        dataSet.addProperty("envName",EnvironmentFactory.getEnvironmentName());
+        dataSet.addProperty("envName",runContext.getEnvironmentName());
+        dataSet.add("runContext", runContext.toJson());
         dataSet.add("reportData",jsonReportData);
         return dataSet;
     }
@@ -613,7 +619,7 @@ public class ReportAnalyzer {
 
     private String getEnvironment() {
         try {
-            return EnvironmentFactory.getEnvironmentName();
+            return RunContext.get().getEnvironmentName();
         } catch (Exception e) {
             return "No Information";
         }
@@ -621,7 +627,7 @@ public class ReportAnalyzer {
 
     private String getRunType() {
         try {
-            return EnvironmentFactory.getScenarioTag();
+            return RunContext.get().getScenarioTag();
         } catch (Exception e) {
             return "No Information";
         }
@@ -636,16 +642,16 @@ public class ReportAnalyzer {
     }
 
     private static String getReportSourcePath() {
-        if (EnvironmentFactory.getReportAnalysisDataPath() != null)
-            return EnvironmentFactory.getReportAnalysisDataPath();
+        if (RunContext.get().getReportAnalysisDataPath() != null)
+            return RunContext.get().getReportAnalysisDataPath();
         else {
             return System.getProperty("user.dir") + "/target/cucumber-report";
         }
     }
 
     private static String getReportGenerationPath() {
-        if (EnvironmentFactory.getReportAnalysisGenerationPath() != null)
-            return EnvironmentFactory.getReportAnalysisGenerationPath();
+        if (RunContext.get().getReportAnalysisGenerationPath() != null)
+            return RunContext.get().getReportAnalysisGenerationPath();
         else {
             return System.getProperty("user.dir") + "/target";
         }